@@ -0,0 +1,100 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.build.BuildContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per file operations of the {@link BuildContext} that plugins
+ * usually call in a loop over all their files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BuildContextBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int files;
+
+    private FileTree tree;
+    private BuildContext buildContext;
+    private byte[][] changed;
+    private int index;
+    private int pass;
+
+    @Setup
+    public void setup() throws IOException {
+        tree = FileTree.create(files);
+        buildContext = FileTree.buildContext();
+        // unique per run so files left by a previous run never match
+        String nonce = "// " + System.nanoTime() + "\n";
+        changed = new byte[][] {
+            (nonce + "a").getBytes(StandardCharsets.UTF_8), (nonce + "b").getBytes(StandardCharsets.UTF_8)
+        };
+    }
+
+    private int next() {
+        int i = index++;
+        if (index == files) {
+            index = 0;
+            pass++;
+        }
+        return i;
+    }
+
+    @Benchmark
+    public void newFileOutputStreamUnchanged() throws IOException {
+        int i = next();
+        try (OutputStream stream = buildContext.newFileOutputStream(tree.target(i))) {
+            stream.write(FileTree.content(i));
+        }
+    }
+
+    @Benchmark
+    public void newFileOutputStreamChanged() throws IOException {
+        int i = next();
+        // alternate the content with every pass over the tree so each write is a change,
+        // uses its own files so the targets stay unchanged for the other benchmarks
+        try (OutputStream stream = buildContext.newFileOutputStream(tree.output(i))) {
+            stream.write(changed[pass & 1]);
+        }
+    }
+
+    @Benchmark
+    public boolean hasDelta() {
+        return buildContext.hasDelta(tree.source(next()));
+    }
+
+    @Benchmark
+    public boolean isUptodate() {
+        int i = next();
+        return buildContext.isUptodate(tree.target(i), tree.source(i));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.LegacySupport;
+import org.codehaus.plexus.build.DefaultBuildContext;
+import org.codehaus.plexus.build.connect.TcpBuildConnection;
+import org.eclipse.aether.RepositorySystemSession;
+
+/**
+ * A synthetic source tree in the temp directory, trees are generated once and
+ * reused by further runs as creating a million files takes a while.
+ */
+final class FileTree {
+
+    /**
+     * The number of files per folder
+     */
+    private static final int FOLDER_SIZE = 1000;
+
+    private final Path root;
+    private final int files;
+
+    private FileTree(Path root, int files) {
+        this.root = root;
+        this.files = files;
+    }
+
+    /**
+     * Returns a tree with the given number of source files, each file has a
+     * corresponding (newer) target and output file in a parallel folder.
+     *
+     * @param files the number of files
+     * @return the tree
+     * @throws IOException if creation of the tree failed
+     */
+    static FileTree create(int files) throws IOException {
+        Path root = Paths.get(System.getProperty("java.io.tmpdir"), "plexus-build-api-benchmarks", "tree-" + files);
+        FileTree tree = new FileTree(root, files);
+        Path marker = root.resolve("complete");
+        if (!Files.exists(marker)) {
+            for (int i = 0; i < files; i++) {
+                write(tree.source(i).toPath(), content(i));
+            }
+            for (int i = 0; i < files; i++) {
+                write(tree.target(i).toPath(), content(i));
+            }
+            for (int i = 0; i < files; i++) {
+                write(tree.output(i).toPath(), content(i));
+            }
+            Files.createFile(marker);
+        }
+        return tree;
+    }
+
+    private static void write(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    /**
+     * @param index the index of the file
+     * @return the content the file was generated with
+     */
+    static byte[] content(int index) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("package org.example.p").append(index / FOLDER_SIZE).append(";\n\n");
+        sb.append("public class Generated").append(index).append(" {\n");
+        while (sb.length() < 250) {
+            sb.append("    // padding to get a realistic file size\n");
+        }
+        sb.append("}\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return files;
+    }
+
+    File sources() {
+        return root.resolve("src").toFile();
+    }
+
+    File source(int index) {
+        return root.resolve("src/p" + index / FOLDER_SIZE + "/Generated" + index + ".java")
+                .toFile();
+    }
+
+    File target(int index) {
+        return root.resolve("target/p" + index / FOLDER_SIZE + "/Generated" + index + ".java")
+                .toFile();
+    }
+
+    File output(int index) {
+        return root.resolve("out/p" + index / FOLDER_SIZE + "/Generated" + index + ".java")
+                .toFile();
+    }
+
+    /**
+     * @return a build context as used in a command line build
+     */
+    static DefaultBuildContext buildContext() {
+        return new DefaultBuildContext(
+                new org.sonatype.plexus.build.incremental.DefaultBuildContext(),
+                new TcpBuildConnection(),
+                new LegacySupport() {
+
+                    @Override
+                    public void setSession(MavenSession session) {}
+
+                    @Override
+                    public MavenSession getSession() {
+                        return null;
+                    }
+
+                    @Override
+                    public RepositorySystemSession getRepositorySession() {
+                        return null;
+                    }
+                });
+    }
+}
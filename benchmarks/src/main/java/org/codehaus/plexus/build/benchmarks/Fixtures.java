@@ -0,0 +1,166 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.eventspy.EventSpy;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.BuildContext;
+import org.codehaus.plexus.build.connect.messages.MarkerMessage;
+import org.codehaus.plexus.build.connect.messages.TimingsMessage;
+
+/**
+ * Creates the maven objects the messages are build from, without the need of
+ * a running maven
+ */
+final class Fixtures {
+
+    private Fixtures() {}
+
+    /**
+     * Creates a reactor with projects of a realistic size
+     *
+     * @param basedir      the root directory of the reactor
+     * @param count        the number of projects
+     * @param dependencies the number of dependencies of each project
+     * @return the projects
+     */
+    static List<MavenProject> projects(File basedir, int count, int dependencies) {
+        List<MavenProject> projects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            projects.add(project(new File(basedir, "module-" + i), i, dependencies));
+        }
+        return projects;
+    }
+
+    static MavenProject project(File basedir, int index, int dependencies) {
+        Model model = new Model();
+        model.setModelVersion("4.0.0");
+        model.setGroupId("org.example.benchmark");
+        model.setArtifactId("module-" + index);
+        model.setVersion("1.0.0-SNAPSHOT");
+        model.setName("Benchmark module " + index);
+        model.setDescription("A module generated to measure the cost of sending effective models");
+        Properties properties = new Properties();
+        properties.setProperty("project.build.sourceEncoding", "UTF-8");
+        properties.setProperty("maven.compiler.release", "8");
+        model.setProperties(properties);
+        for (int i = 0; i < dependencies; i++) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId("org.example.dependency" + (i % 10));
+            dependency.setArtifactId("library-" + i);
+            dependency.setVersion("2." + i + ".0");
+            dependency.setScope(i % 4 == 0 ? "test" : "compile");
+            model.addDependency(dependency);
+        }
+        Build build = new Build();
+        for (String artifactId : new String[] {
+            "maven-compiler-plugin", "maven-surefire-plugin", "maven-jar-plugin", "maven-resources-plugin"
+        }) {
+            Plugin plugin = new Plugin();
+            plugin.setArtifactId(artifactId);
+            plugin.setVersion("3.0.0");
+            build.addPlugin(plugin);
+        }
+        model.setBuild(build);
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(basedir, "pom.xml"));
+        return project;
+    }
+
+    static MavenSession session(File basedir, List<MavenProject> projects) {
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setBaseDirectory(basedir);
+        return new MavenSession(null, request, new DefaultMavenExecutionResult(), projects);
+    }
+
+    static MojoExecution mojoExecution() {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-compiler-plugin");
+        plugin.setVersion("3.14.0");
+        MojoExecution execution = new MojoExecution(plugin, "compile", "default-compile");
+        execution.setLifecyclePhase("compile");
+        return execution;
+    }
+
+    /**
+     * Creates the markers of a file with a typical compiler warning text
+     *
+     * @param count the number of markers
+     * @return the markers
+     */
+    static List<MarkerMessage.Marker> markers(int count) {
+        List<MarkerMessage.Marker> markers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            markers.add(new MarkerMessage.Marker(
+                    i % 3 == 0 ? BuildContext.SEVERITY_ERROR : BuildContext.SEVERITY_WARNING,
+                    10 + i * 7,
+                    i % 40,
+                    "[unchecked] unchecked call to add(E) as a member of the raw type java.util.List"));
+        }
+        return markers;
+    }
+
+    /**
+     * Creates the timings of a reactor build
+     *
+     * @param projects the projects of the reactor
+     * @return the timings with four mojo executions per project
+     */
+    static TimingsMessage timings(List<MavenProject> projects) {
+        List<String> criticalPath = new ArrayList<>();
+        Map<String, Long> projectTimes = new LinkedHashMap<>();
+        Map<String, Long> mojoTimes = new LinkedHashMap<>();
+        for (int i = 0; i < projects.size(); i++) {
+            String id = projects.get(i).getId();
+            if (i % 3 == 0) {
+                criticalPath.add(id);
+            }
+            projectTimes.put(id, 1000L + i * 37);
+            for (String goal : new String[] {"resources", "compile", "test", "jar"}) {
+                mojoTimes.put(id + "/" + goal, 250L + i * 11);
+            }
+        }
+        return new TimingsMessage(60000, 4, criticalPath, projectTimes, mojoTimes);
+    }
+
+    static EventSpy.Context context() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("plexus", "container");
+        data.put("workingDirectory", System.getProperty("user.dir"));
+        Properties system = new Properties();
+        system.setProperty("java.version", System.getProperty("java.version"));
+        system.setProperty("os.name", System.getProperty("os.name"));
+        system.setProperty("maven.version", "3.9.16");
+        data.put("systemProperties", system);
+        Properties user = new Properties();
+        user.setProperty("skipTests", "true");
+        data.put("userProperties", user);
+        return () -> data;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.execution.ExecutionEvent.Type;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.connect.messages.InitMessage;
+import org.codehaus.plexus.build.connect.messages.MarkerMessage;
+import org.codehaus.plexus.build.connect.messages.Message;
+import org.codehaus.plexus.build.connect.messages.MojoMessage;
+import org.codehaus.plexus.build.connect.messages.ProgressMessage;
+import org.codehaus.plexus.build.connect.messages.ProjectMessage;
+import org.codehaus.plexus.build.connect.messages.RefreshMessage;
+import org.codehaus.plexus.build.connect.messages.SessionMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding of all message types except the
+ * {@link org.codehaus.plexus.build.connect.messages.ProjectsMessage} that is
+ * covered by {@link ProjectsMessageBenchmark}. Run with <code>-prof gc</code>
+ * to get the allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageCodecBenchmark {
+
+    @Param({
+        "InitMessage",
+        "SessionMessage",
+        "ProjectMessage",
+        "MojoMessage",
+        "RefreshMessage",
+        "MarkerMessage",
+        "ProgressMessage",
+        "TimingsMessage"
+    })
+    public String type;
+
+    private Message message;
+    private byte[] bytes;
+    private byte[] sessionId;
+
+    @Setup
+    public void setup() {
+        File basedir = new File(System.getProperty("java.io.tmpdir"), "benchmark-reactor");
+        MavenProject project = Fixtures.project(basedir, 0, 10);
+        switch (type) {
+            case "InitMessage":
+                message = new InitMessage(Fixtures.context());
+                break;
+            case "SessionMessage":
+                message = new SessionMessage(Fixtures.session(basedir, Collections.singletonList(project)), true);
+                break;
+            case "ProjectMessage":
+                message = new ProjectMessage(project, Type.ProjectStarted);
+                break;
+            case "MojoMessage":
+                message = new MojoMessage(Fixtures.mojoExecution(), Type.MojoStarted);
+                break;
+            case "RefreshMessage":
+                message = new RefreshMessage(new File(basedir, "target/generated-sources/annotations").toPath());
+                break;
+            case "MarkerMessage":
+                message = new MarkerMessage(
+                        new File(basedir, "src/main/java/org/example/Example.java").toPath(),
+                        Fixtures.markers(20),
+                        true);
+                break;
+            case "ProgressMessage":
+                message = new ProgressMessage(project, Fixtures.mojoExecution(), "Compiling", 1200, 345, false, 4200);
+                break;
+            case "TimingsMessage":
+                message = Fixtures.timings(Fixtures.projects(basedir, 50, 0));
+                break;
+            default:
+                throw new IllegalArgumentException(type);
+        }
+        String id = "6f1c2a0e-8a0b-4a57-9d0c-1f6b5c2b7e11";
+        bytes = message.serialize(id);
+        sessionId = Message.encodeSessionId(id);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return message.serialize("6f1c2a0e-8a0b-4a57-9d0c-1f6b5c2b7e11");
+    }
+
+    @Benchmark
+    public void encodeStreaming(Blackhole blackhole) throws IOException {
+        message.writeTo(sessionId, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public Message decode() {
+        return Message.decode(bytes);
+    }
+
+    static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.plexus.build.messages.DefaultMessages;
+import org.codehaus.plexus.build.messages.MessageBuilder;
+import org.codehaus.plexus.build.messages.Messages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating messages that are suppressed, as the benchmarks use
+ * <code>slf4j-nop</code> no level is enabled and a command line build context
+ * discards all messages. Run with <code>-prof gc</code> to verify that no
+ * memory is allocated per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessagesBenchmark {
+
+    private Messages messages;
+    private Path path;
+    private MessageBuilder builder;
+    private int line;
+
+    @Setup
+    public void setup() {
+        messages = new DefaultMessages(FileTree.buildContext());
+        path = Paths.get("src/main/java/Example.java");
+        builder = messages.warning(path);
+    }
+
+    @Benchmark
+    public void suppressedWarning() {
+        messages.warning(path).line(++line).column(10).create("Unused import");
+    }
+
+    @Benchmark
+    public void suppressedWarningReusedBuilder() {
+        builder.line(++line).column(10).create("Unused import");
+    }
+}
@@ -0,0 +1,86 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.connect.messages.Message;
+import org.codehaus.plexus.build.connect.messages.ProjectsMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the {@link ProjectsMessage} that carries the effective model of all
+ * reactor projects, with reactors and POMs of different sizes. Run with
+ * <code>-prof gc</code> to get the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProjectsMessageBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int projects;
+
+    @Param({"10", "100"})
+    public int dependencies;
+
+    private List<MavenProject> reactor;
+    private Message message;
+    private byte[] bytes;
+    private byte[] sessionId;
+
+    @Setup
+    public void setup() {
+        File basedir = new File(System.getProperty("java.io.tmpdir"), "benchmark-reactor");
+        reactor = Fixtures.projects(basedir, projects, dependencies);
+        message = new ProjectsMessage(reactor);
+        bytes = message.serialize("session");
+        sessionId = Message.encodeSessionId("session");
+    }
+
+    @Benchmark
+    public Message create() {
+        return new ProjectsMessage(reactor);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return message.serialize("session");
+    }
+
+    @Benchmark
+    public void encodeStreaming(Blackhole blackhole) throws IOException {
+        message.writeTo(sessionId, new MessageCodecBenchmark.BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public Message decode() {
+        return Message.decode(bytes);
+    }
+}
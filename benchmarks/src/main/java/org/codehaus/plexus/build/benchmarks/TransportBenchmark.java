@@ -0,0 +1,93 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.execution.ExecutionEvent.Type;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.build.connect.TcpBuildConnection;
+import org.codehaus.plexus.build.connect.TcpBuildConnection.ServerConnection;
+import org.codehaus.plexus.build.connect.messages.Message;
+import org.codehaus.plexus.build.connect.messages.MojoMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of a {@link TcpBuildConnection#send} round trip to a
+ * {@link ServerConnection} over the loopback interface with a growing number of
+ * concurrent sender threads (each maven thread uses its own socket).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransportBenchmark {
+
+    private ServerConnection server;
+    private TcpBuildConnection connection;
+    private MavenSession session;
+    private Message message;
+
+    @Setup
+    public void setup() throws IOException {
+        server = TcpBuildConnection.createServer(m -> null);
+        server.setupProcess(System::setProperty);
+        connection = new TcpBuildConnection();
+        File basedir = new File(System.getProperty("java.io.tmpdir"), "benchmark-reactor");
+        session = Fixtures.session(basedir, Collections.singletonList(Fixtures.project(basedir, 0, 10)));
+        message = new MojoMessage(Fixtures.mojoExecution(), Type.MojoStarted);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Message roundTrip1() {
+        return connection.send(message, session);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Message roundTrip4() {
+        return connection.send(message, session);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Message roundTrip16() {
+        return connection.send(message, session);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Message roundTrip64() {
+        return connection.send(message, session);
+    }
+}
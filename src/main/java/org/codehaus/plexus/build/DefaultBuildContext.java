@@ -20,13 +20,30 @@ import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.execution.MojoExecutionListener;
 import org.apache.maven.plugin.LegacySupport;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.build.connect.BuildConnection;
+import org.codehaus.plexus.build.connect.messages.MarkerMessage;
 import org.codehaus.plexus.build.connect.messages.RefreshMessage;
+import org.codehaus.plexus.build.messages.Message;
+import org.codehaus.plexus.build.messages.MessageType;
+import org.codehaus.plexus.build.metrics.BuildEvents;
+import org.codehaus.plexus.build.metrics.BuildMetrics;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Counter;
 import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.util.Scanner;
 import org.codehaus.plexus.util.io.CachingOutputStream;
@@ -46,10 +63,16 @@ import org.slf4j.LoggerFactory;
  * <li>getValue always returns the last set value in this session and only
  * stores to memory</li>
  * </ol>
+ * <p>
+ * If an IDE is connected the markers added during a mojo execution are
+ * collected per file and sent as one {@link MarkerMessage} per file when the
+ * execution ends, markers added outside of a mojo execution are sent
+ * immediately.
+ * </p>
  */
 @Named("default")
 @Singleton
-public class DefaultBuildContext implements BuildContext {
+public class DefaultBuildContext implements BuildContext, MojoExecutionListener {
 
     private final Logger logger = LoggerFactory.getLogger(DefaultBuildContext.class);
     // the legacy API requires the AbstractLogEnabled we just have it here to get
@@ -61,6 +84,10 @@ public class DefaultBuildContext implements BuildContext {
     private org.sonatype.plexus.build.incremental.BuildContext legacy;
     private BuildConnection connection;
     private LegacySupport legacySupport;
+    private BuildMetrics metrics;
+    private final FileAttributesCache attributes;
+    private final ProcessedFiles processed = new ProcessedFiles();
+    private final Map<MavenSession, MarkerBuffer> markers = new ConcurrentHashMap<>();
 
     /**
      * @param legacy        the legacy API we delegate to by default, this allow us
@@ -69,19 +96,41 @@ public class DefaultBuildContext implements BuildContext {
      * @param connection    the connection we use to forward refresh events
      * @param legacySupport legacy support to get the current session
      */
-    @Inject
     public DefaultBuildContext(
             org.sonatype.plexus.build.incremental.BuildContext legacy,
             BuildConnection connection,
             LegacySupport legacySupport) {
+        this(legacy, connection, legacySupport, BuildMetrics.NOOP);
+    }
+
+    /**
+     * @param legacy        the legacy API we delegate to by default, this allow us
+     *                      to support "older" plugins and implementors of the API
+     *                      while still having a way to move forward!
+     * @param connection    the connection we use to forward refresh events
+     * @param legacySupport legacy support to get the current session
+     * @param metrics       the metrics to record file system operations to
+     */
+    @Inject
+    public DefaultBuildContext(
+            org.sonatype.plexus.build.incremental.BuildContext legacy,
+            BuildConnection connection,
+            LegacySupport legacySupport,
+            BuildMetrics metrics) {
         this.legacy = legacy;
         this.connection = connection;
         this.legacySupport = legacySupport;
+        this.metrics = metrics;
+        this.attributes = new FileAttributesCache(metrics);
     }
 
     /** {@inheritDoc} */
     public boolean hasDelta(String relpath) {
-        return legacy.hasDelta(relpath);
+        boolean delta = legacy.hasDelta(relpath);
+        if (delta) {
+            recordProcessed(relpath);
+        }
+        return delta;
     }
 
     /**
@@ -91,7 +140,11 @@ public class DefaultBuildContext implements BuildContext {
      * @return a boolean.
      */
     public boolean hasDelta(File file) {
-        return legacy.hasDelta(file);
+        boolean delta = legacy.hasDelta(file);
+        if (delta && file != null) {
+            processed.add(getScope(), file.toPath());
+        }
+        return delta;
     }
 
     /**
@@ -101,17 +154,93 @@ public class DefaultBuildContext implements BuildContext {
      * @return a boolean.
      */
     public boolean hasDelta(List<String> relpaths) {
-        return legacy.hasDelta(relpaths);
+        boolean delta = legacy.hasDelta(relpaths);
+        if (delta && relpaths != null) {
+            // we can't tell which one has changed, but all of them are processed again
+            for (String relpath : relpaths) {
+                recordProcessed(relpath);
+            }
+        }
+        return delta;
+    }
+
+    private void recordProcessed(String relpath) {
+        Object scope = getScope();
+        if (relpath != null && processed.isEnabled(scope)) {
+            MavenSession session = legacySupport == null ? null : legacySupport.getSession();
+            MavenProject project = session == null ? null : session.getCurrentProject();
+            if (project != null && project.getBasedir() != null) {
+                processed.add(scope, project.getBasedir().toPath().resolve(relpath));
+            }
+        }
+    }
+
+    /**
+     * Starts recording which files the current build processes, that are files
+     * reported as changed by {@link #hasDelta(File)} (and its variants), files
+     * found by a scanner of this context and files written through
+     * {@link #newFileOutputStream(File)}.
+     */
+    public void recordProcessedFiles() {
+        processed.enable(getScope());
+    }
+
+    /**
+     * @param path the path to check
+     * @return <code>true</code> if the file was processed by the current build
+     *         since {@link #recordProcessedFiles()} was called
+     */
+    public boolean isProcessed(Path path) {
+        return processed.contains(getScope(), path);
+    }
+
+    private Object getScope() {
+        MavenSession session = legacySupport == null ? null : legacySupport.getSession();
+        // the request is shared by the per project copies of the session of a parallel build
+        return session == null ? null : session.getRequest();
     }
 
     /** {@inheritDoc} */
     public OutputStream newFileOutputStream(File file) throws IOException {
+        processed.add(getScope(), file.toPath());
+        breakHardLink(file.toPath());
         if (isDefaultImplementation()) {
-            return new CachingOutputStream(file.toPath());
+            CachingOutputStream stream = new CachingOutputStream(file.toPath());
+            if (isMeasured()) {
+                return attributes.invalidateOnClose(file.toPath(), new MeasuredOutputStream(file, stream, metrics));
+            }
+            return attributes.invalidateOnClose(file.toPath(), stream);
         }
         return legacy.newFileOutputStream(file);
     }
 
+    /**
+     * Replaces a file that has several hard links (e.g. an output restored from
+     * the output cache) by a copy, the stream rewrites the file in place and would
+     * otherwise modify the content of all other links as well
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be copied
+     */
+    private static void breakHardLink(Path path) throws IOException {
+        Object links;
+        try {
+            links = Files.getAttribute(path, "unix:nlink");
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            // the file does not exist yet or the file system can't tell
+            return;
+        }
+        if (links instanceof Integer && (Integer) links > 1) {
+            Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.copy(path, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
     /**
      * @return <code>true</code> if the legacy is the default implementation and we
      *         can safely override/change behavior here, or <code>false</code> if a
@@ -123,13 +252,33 @@ public class DefaultBuildContext implements BuildContext {
 
     /** {@inheritDoc} */
     public Scanner newScanner(File basedir) {
-        return legacy.newScanner(basedir);
+        return measure(legacy.newScanner(basedir));
+    }
+
+    private Scanner measure(Scanner scanner) {
+        Object scope = getScope();
+        if (scanner != null && processed.isEnabled(scope)) {
+            scanner = new RecordingScanner(scanner, processed, scope);
+        }
+        if (scanner != null && isMeasured()) {
+            return new MeasuredScanner(scanner, metrics);
+        }
+        return scanner;
+    }
+
+    private boolean isMeasured() {
+        return metrics != BuildMetrics.NOOP || BuildEvents.isEnabled();
     }
 
     /** {@inheritDoc} */
     public void refresh(File file) {
         legacy.refresh(file);
-        connection.send(new RefreshMessage(file.toPath()), legacySupport.getSession());
+        attributes.invalidate(file.toPath());
+        metrics.increment(Counter.REFRESHES, 1);
+        BuildEvents.refreshed(file);
+        if (connection.isEnabled(RefreshMessage.class)) {
+            connection.send(new RefreshMessage(file.toPath()), legacySupport.getSession());
+        }
     }
 
     /** {@inheritDoc} */
@@ -139,7 +288,7 @@ public class DefaultBuildContext implements BuildContext {
 
     /** {@inheritDoc} */
     public Scanner newScanner(File basedir, boolean ignoreDelta) {
-        return legacy.newScanner(basedir, ignoreDelta);
+        return measure(legacy.newScanner(basedir, ignoreDelta));
     }
 
     /**
@@ -181,9 +330,133 @@ public class DefaultBuildContext implements BuildContext {
         return file.getAbsolutePath() + " [" + line + ':' + column + "]: " + message;
     }
 
+    /**
+     * Checks if a message of the given severity would have any effect, this is
+     * always the case if a custom implementation is used or an IDE is connected
+     * while the default implementation only logs the message.
+     *
+     * @param severity the severity of the message
+     * @return <code>false</code> if {@link #addMessage(File, int, int, String, int, Throwable)}
+     *         would discard a message of the given severity
+     */
+    public boolean isMessageEnabled(int severity) {
+        if (isDefaultImplementation() && !connection.isEnabled(MarkerMessage.class)) {
+            return isLogEnabled(severity);
+        }
+        return true;
+    }
+
+    private boolean isLogEnabled(int severity) {
+        switch (severity) {
+            case BuildContext.SEVERITY_ERROR:
+                return logger.isErrorEnabled();
+            case BuildContext.SEVERITY_WARNING:
+                return logger.isWarnEnabled();
+            default:
+                return logger.isDebugEnabled();
+        }
+    }
+
     /** {@inheritDoc} */
     public void addMessage(File file, int line, int column, String message, int severity, Throwable cause) {
+        handleMessage(file, line, column, message, severity, cause);
+        if (connection.isEnabled(MarkerMessage.class)) {
+            MarkerMessage.Marker marker = new MarkerMessage.Marker(severity, line, column, message);
+            sendMarkers(file, false, Collections.singletonList(marker));
+        }
+    }
+
+    /**
+     * Sends markers to the connected IDE, during a mojo execution they are
+     * buffered until the execution ends
+     */
+    private void sendMarkers(File file, boolean replace, List<MarkerMessage.Marker> list) {
+        MavenSession session = legacySupport.getSession();
+        MarkerBuffer buffer = session == null ? null : markers.get(session);
+        if (buffer == null || !buffer.add(file, replace, list)) {
+            connection.send(new MarkerMessage(file.toPath(), list, replace), session);
+        }
+    }
+
+    @Override
+    public void beforeMojoExecution(MojoExecutionEvent event) {
+        MavenSession session = event.getSession();
+        if (session != null && connection.isEnabled(MarkerMessage.class)) {
+            // the mojos of a project are executed one after the other with the same session
+            markers.put(session, new MarkerBuffer());
+        }
+    }
+
+    @Override
+    public void afterMojoExecutionSuccess(MojoExecutionEvent event) {
+        sendBufferedMarkers(event.getSession());
+    }
+
+    @Override
+    public void afterExecutionFailure(MojoExecutionEvent event) {
+        sendBufferedMarkers(event.getSession());
+    }
+
+    private void sendBufferedMarkers(MavenSession session) {
+        MarkerBuffer buffer = session == null ? null : markers.remove(session);
+        if (buffer != null) {
+            for (MarkerMessage message : buffer.close()) {
+                connection.send(message, session);
+            }
+        }
+    }
+
+    /**
+     * Adds several messages of the same file, this is like calling
+     * {@link #removeMessages(File)} (if <code>replace</code> is <code>true</code>)
+     * followed by {@link #addMessage(File, int, int, String, int, Throwable)} for
+     * each message but a connected IDE receives all of them with a single
+     * {@link MarkerMessage}.
+     *
+     * @param file     the file the messages belong to
+     * @param replace  <code>true</code> if the messages replace all existing
+     *                 messages of the file
+     * @param messages the messages to add
+     */
+    public void addMessages(File file, boolean replace, Collection<Message> messages) {
+        if (replace && !isDefaultImplementation()) {
+            legacy.removeMessages(file);
+        }
+        for (Message message : messages) {
+            handleMessage(
+                    file,
+                    message.getLine(),
+                    message.getColumn(),
+                    message.getMessage(),
+                    getSeverity(message.getType()),
+                    message.getCause());
+        }
+        if (connection.isEnabled(MarkerMessage.class)) {
+            List<MarkerMessage.Marker> markers = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                markers.add(new MarkerMessage.Marker(
+                        getSeverity(message.getType()), message.getLine(), message.getColumn(), message.getMessage()));
+            }
+            sendMarkers(file, replace, markers);
+        }
+    }
+
+    private static int getSeverity(MessageType type) {
+        switch (type) {
+            case ERROR:
+                return SEVERITY_ERROR;
+            case WARNING:
+                return SEVERITY_WARNING;
+            default:
+                return 0;
+        }
+    }
+
+    private void handleMessage(File file, int line, int column, String message, int severity, Throwable cause) {
         if (isDefaultImplementation()) {
+            if (!isLogEnabled(severity)) {
+                return;
+            }
             switch (severity) {
                 case BuildContext.SEVERITY_ERROR:
                     logger.error(getMessage(file, line, column, message), cause);
@@ -201,14 +474,43 @@ public class DefaultBuildContext implements BuildContext {
 
     /** {@inheritDoc} */
     public void removeMessages(File file) {
-        if (isDefaultImplementation()) {
-            return;
+        if (!isDefaultImplementation()) {
+            legacy.removeMessages(file);
+        }
+        if (connection.isEnabled(MarkerMessage.class)) {
+            sendMarkers(file, true, Collections.emptyList());
         }
-        legacy.removeMessages(file);
     }
 
     /** {@inheritDoc} */
     public boolean isUptodate(File target, File source) {
+        if (isDefaultImplementation()) {
+            if (target == null || source == null) {
+                return false;
+            }
+            BasicFileAttributes targetAttributes = getFileAttributes(target.toPath());
+            if (targetAttributes == null) {
+                return false;
+            }
+            BasicFileAttributes sourceAttributes = getFileAttributes(source.toPath());
+            return sourceAttributes != null
+                    && targetAttributes.lastModifiedTime().compareTo(sourceAttributes.lastModifiedTime()) > 0;
+        }
         return legacy.isUptodate(target, source);
     }
+
+    /**
+     * Returns the attributes of a file, these are cached for the current build
+     * so querying the same file again does not access the file system. The cache
+     * entry of a file is dropped when it is written through
+     * {@link #newFileOutputStream(File)} or {@link #refresh(File)} is called for
+     * the file or one of its parent folders, so files changed by other means
+     * must be refreshed to see the new attributes.
+     *
+     * @param path the path to query
+     * @return the attributes or <code>null</code> if the file does not exist
+     */
+    public BasicFileAttributes getFileAttributes(Path path) {
+        return attributes.get(getScope(), path);
+    }
 }
@@ -0,0 +1,132 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.codehaus.plexus.build.metrics.BuildMetrics;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Counter;
+
+/**
+ * Caches the {@link BasicFileAttributes} of files for the duration of a build,
+ * so the same file is only read from the file system once no matter how often
+ * its attributes are queried. Entries are dropped when the file is written
+ * through the build context or refreshed, a new build (identified by its
+ * request, that is shared by the per project copies of the session of a
+ * parallel build) starts with an empty cache.
+ */
+final class FileAttributesCache {
+
+    private final BuildMetrics metrics;
+
+    private volatile Object scope;
+
+    private volatile Map<Path, Optional<BasicFileAttributes>> entries = new ConcurrentHashMap<>();
+
+    FileAttributesCache(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param scope the scope of the cache, usually the request of the current
+     *              session
+     * @param path  the path to query
+     * @return the attributes or <code>null</code> if the file does not exist
+     */
+    BasicFileAttributes get(Object scope, Path path) {
+        Map<Path, Optional<BasicFileAttributes>> entries = getEntries(scope);
+        Path key = path.toAbsolutePath();
+        Optional<BasicFileAttributes> attributes = entries.get(key);
+        if (attributes == null) {
+            attributes = read(key);
+            metrics.increment(Counter.FILE_ATTRIBUTES_READ, 1);
+            entries.put(key, attributes);
+        } else {
+            metrics.increment(Counter.FILE_ATTRIBUTES_CACHED, 1);
+        }
+        return attributes.orElse(null);
+    }
+
+    private static Optional<BasicFileAttributes> read(Path path) {
+        try {
+            return Optional.of(Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (IOException e) {
+            // most likely the file does not exist, in any case we can't tell anything about it
+            return Optional.empty();
+        }
+    }
+
+    private Map<Path, Optional<BasicFileAttributes>> getEntries(Object scope) {
+        if (scope != this.scope) {
+            synchronized (this) {
+                if (scope != this.scope) {
+                    entries = new ConcurrentHashMap<>();
+                    this.scope = scope;
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Drops the cached attributes of the given path and if it is a directory also
+     * of all paths below
+     *
+     * @param path the path that has changed
+     */
+    void invalidate(Path path) {
+        Map<Path, Optional<BasicFileAttributes>> entries = this.entries;
+        if (entries.isEmpty()) {
+            return;
+        }
+        Path key = path.toAbsolutePath();
+        Optional<BasicFileAttributes> attributes = entries.remove(key);
+        boolean directory = attributes == null
+                ? Files.isDirectory(key)
+                : attributes.map(BasicFileAttributes::isDirectory).orElse(false);
+        if (directory) {
+            entries.keySet().removeIf(p -> p.startsWith(key));
+        }
+    }
+
+    /**
+     * @param path   the path written by the stream
+     * @param stream the stream to wrap
+     * @return a stream that invalidates the given path when it is closed
+     */
+    OutputStream invalidateOnClose(Path path, OutputStream stream) {
+        return new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    entries.remove(path.toAbsolutePath());
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.plexus.build.connect.messages.MarkerMessage;
+
+/**
+ * Collects the markers of a mojo execution per file, so each file is sent as a
+ * single {@link MarkerMessage} when the execution ends instead of one message
+ * per marker. Removing the markers of a file drops the markers collected so
+ * far and makes the remaining ones replace the markers of the file. Once
+ * closed the buffer rejects all further markers, so they can be sent directly.
+ */
+final class MarkerBuffer {
+
+    private final Map<File, Pending> files = new LinkedHashMap<>();
+
+    private boolean closed;
+
+    /**
+     * @param file    the file the markers belong to
+     * @param replace <code>true</code> if the markers replace all existing
+     *                markers of the file
+     * @param markers the markers to add
+     * @return <code>false</code> if the buffer is closed
+     */
+    synchronized boolean add(File file, boolean replace, Collection<MarkerMessage.Marker> markers) {
+        if (closed) {
+            return false;
+        }
+        Pending pending = files.computeIfAbsent(file, f -> new Pending());
+        if (replace) {
+            pending.replace = true;
+            pending.markers.clear();
+        }
+        pending.markers.addAll(markers);
+        return true;
+    }
+
+    /**
+     * Closes the buffer
+     *
+     * @return the messages to send, one per file
+     */
+    synchronized List<MarkerMessage> close() {
+        closed = true;
+        List<MarkerMessage> messages = new ArrayList<>(files.size());
+        for (Map.Entry<File, Pending> entry : files.entrySet()) {
+            Pending pending = entry.getValue();
+            messages.add(new MarkerMessage(entry.getKey().toPath(), pending.markers, pending.replace));
+        }
+        files.clear();
+        return messages;
+    }
+
+    private static final class Pending {
+
+        private final List<MarkerMessage.Marker> markers = new ArrayList<>();
+        private boolean replace;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+
+import org.codehaus.plexus.build.metrics.BuildEvents;
+import org.codehaus.plexus.build.metrics.BuildMetrics;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Counter;
+import org.codehaus.plexus.util.io.CachingOutputStream;
+
+/**
+ * Records the bytes passed to a {@link CachingOutputStream} and if the file was
+ * actually written once the stream is closed.
+ */
+final class MeasuredOutputStream extends FilterOutputStream {
+
+    private final File file;
+    private final CachingOutputStream stream;
+    private final BuildMetrics metrics;
+    private long bytes;
+    private boolean closed;
+
+    MeasuredOutputStream(File file, CachingOutputStream stream, BuildMetrics metrics) {
+        super(stream);
+        this.file = file;
+        this.stream = stream;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        stream.write(b);
+        bytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        stream.write(b, off, len);
+        bytes += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        stream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stream.close();
+        boolean modified = stream.isModified();
+        metrics.increment(Counter.BYTES_COMPARED, bytes);
+        metrics.increment(modified ? Counter.WRITES_PERFORMED : Counter.WRITES_SKIPPED, 1);
+        BuildEvents.fileWritten(file, bytes, !modified);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.File;
+import java.util.Comparator;
+
+import org.codehaus.plexus.build.metrics.BuildEvents;
+import org.codehaus.plexus.build.metrics.BuildMetrics;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Counter;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Timer;
+import org.codehaus.plexus.util.Scanner;
+
+/**
+ * Records the duration of scans and the number of files found. The files are
+ * counted when the caller first fetches them after a scan so no additional
+ * work is performed on behalf of the metrics.
+ */
+final class MeasuredScanner implements Scanner {
+
+    private final Scanner delegate;
+    private final BuildMetrics metrics;
+    private boolean counted = true;
+    private long duration;
+
+    MeasuredScanner(Scanner delegate, BuildMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setIncludes(String[] includes) {
+        delegate.setIncludes(includes);
+    }
+
+    @Override
+    public void setExcludes(String[] excludes) {
+        delegate.setExcludes(excludes);
+    }
+
+    @Override
+    public void addDefaultExcludes() {
+        delegate.addDefaultExcludes();
+    }
+
+    @Override
+    public void scan() {
+        long start = System.nanoTime();
+        delegate.scan();
+        duration = System.nanoTime() - start;
+        metrics.record(Timer.SCAN, duration);
+        metrics.increment(Counter.SCANS, 1);
+        counted = false;
+    }
+
+    @Override
+    public String[] getIncludedFiles() {
+        String[] files = delegate.getIncludedFiles();
+        if (!counted && files != null) {
+            counted = true;
+            metrics.increment(Counter.FILES_SCANNED, files.length);
+            BuildEvents.scanned(delegate.getBasedir(), files.length, duration);
+        }
+        return files;
+    }
+
+    @Override
+    public String[] getIncludedDirectories() {
+        return delegate.getIncludedDirectories();
+    }
+
+    @Override
+    public File getBasedir() {
+        return delegate.getBasedir();
+    }
+
+    @Override
+    public void setFilenameComparator(Comparator<String> filenameComparator) {
+        delegate.setFilenameComparator(filenameComparator);
+    }
+}
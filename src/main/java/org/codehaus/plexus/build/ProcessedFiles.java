@@ -0,0 +1,96 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the files a build has processed, that is files reported as
+ * changed by {@link BuildContext#hasDelta(File)} or a scanner and files written
+ * through the build context. Recording is off until it is enabled, a new build
+ * (identified by its scope) starts with no files.
+ */
+final class ProcessedFiles {
+
+    private volatile Object scope;
+
+    private volatile boolean enabled;
+
+    private volatile Set<Path> paths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Starts recording the files of the build with the given scope
+     *
+     * @param scope the scope of the build
+     */
+    void enable(Object scope) {
+        setScope(scope);
+        enabled = true;
+    }
+
+    /**
+     * @param scope the scope of the build
+     * @return <code>true</code> if files need to be recorded
+     */
+    boolean isEnabled(Object scope) {
+        return enabled && scope == this.scope;
+    }
+
+    /**
+     * @param scope the scope of the build
+     * @param path  the processed path
+     */
+    void add(Object scope, Path path) {
+        if (isEnabled(scope)) {
+            paths.add(path.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * @param scope   the scope of the build
+     * @param basedir the directory the paths are relative to
+     * @param paths   the processed paths
+     */
+    void add(Object scope, File basedir, String[] paths) {
+        if (basedir != null && paths != null && isEnabled(scope)) {
+            Path base = basedir.toPath().toAbsolutePath().normalize();
+            for (String path : paths) {
+                this.paths.add(base.resolve(path).normalize());
+            }
+        }
+    }
+
+    /**
+     * @param scope the scope of the build
+     * @param path  the path to check
+     * @return <code>true</code> if the path was processed by the build
+     */
+    boolean contains(Object scope, Path path) {
+        return scope == this.scope && paths.contains(path.toAbsolutePath().normalize());
+    }
+
+    private void setScope(Object scope) {
+        if (scope != this.scope) {
+            synchronized (this) {
+                if (scope != this.scope) {
+                    paths = ConcurrentHashMap.newKeySet();
+                    enabled = false;
+                    this.scope = scope;
+                }
+            }
+        }
+    }
+}
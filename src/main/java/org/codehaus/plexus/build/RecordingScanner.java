@@ -0,0 +1,82 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build;
+
+import java.io.File;
+import java.util.Comparator;
+
+import org.codehaus.plexus.util.Scanner;
+
+/**
+ * Records the files found by a scan as processed, the files are recorded when
+ * the caller first fetches them after a scan.
+ */
+final class RecordingScanner implements Scanner {
+
+    private final Scanner delegate;
+    private final ProcessedFiles processed;
+    private final Object scope;
+    private boolean recorded = true;
+
+    RecordingScanner(Scanner delegate, ProcessedFiles processed, Object scope) {
+        this.delegate = delegate;
+        this.processed = processed;
+        this.scope = scope;
+    }
+
+    @Override
+    public void setIncludes(String[] includes) {
+        delegate.setIncludes(includes);
+    }
+
+    @Override
+    public void setExcludes(String[] excludes) {
+        delegate.setExcludes(excludes);
+    }
+
+    @Override
+    public void addDefaultExcludes() {
+        delegate.addDefaultExcludes();
+    }
+
+    @Override
+    public void scan() {
+        delegate.scan();
+        recorded = false;
+    }
+
+    @Override
+    public String[] getIncludedFiles() {
+        String[] files = delegate.getIncludedFiles();
+        if (!recorded && files != null) {
+            recorded = true;
+            processed.add(scope, delegate.getBasedir(), files);
+        }
+        return files;
+    }
+
+    @Override
+    public String[] getIncludedDirectories() {
+        return delegate.getIncludedDirectories();
+    }
+
+    @Override
+    public File getBasedir() {
+        return delegate.getBasedir();
+    }
+
+    @Override
+    public void setFilenameComparator(Comparator<String> filenameComparator) {
+        delegate.setFilenameComparator(filenameComparator);
+    }
+}
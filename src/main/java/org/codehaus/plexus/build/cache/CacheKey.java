@@ -0,0 +1,48 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.cache;
+
+/**
+ * Identifies the outputs of a producer for a given set of inputs and
+ * parameters, see {@link OutputCache#newKey(String)}
+ */
+public final class CacheKey {
+
+    private final String hash;
+
+    CacheKey(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 hash of the producer, inputs and parameters
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CacheKey && ((CacheKey) obj).hash.equals(hash);
+    }
+
+    @Override
+    public String toString() {
+        return hash;
+    }
+}
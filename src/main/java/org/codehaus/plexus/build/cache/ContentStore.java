@@ -0,0 +1,327 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A content addressed store on the local file system, the content of each file
+ * is stored once in <code>objects/&lt;hash&gt;</code> no matter how many
+ * entries refer to it and each entry is a small manifest in
+ * <code>keys/&lt;key&gt;</code> listing the relative path, hash and size of its
+ * files. All files are written to a temporary file first and then moved into
+ * place, so concurrent builds sharing the store never see partial files. The
+ * last modification time of a manifest records its last use and the least
+ * recently used entries are evicted once the objects exceed the size budget.
+ */
+final class ContentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Temporary files older than this are leftovers of an interrupted build,
+     * younger objects that are not referenced by any entry yet may belong to an
+     * entry a concurrent build is still storing
+     */
+    private static final long STALE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path objects;
+    private final Path keys;
+
+    /**
+     * The total size of all objects, computed with the first store and then
+     * maintained incrementally
+     */
+    private final AtomicLong size = new AtomicLong(-1);
+
+    ContentStore(Path directory) {
+        this.objects = directory.resolve("objects");
+        this.keys = directory.resolve("keys");
+    }
+
+    /**
+     * An output file of an entry
+     */
+    static final class Entry {
+
+        final String path;
+        final String hash;
+        final long size;
+
+        Entry(String path, String hash, long size) {
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+
+    Path getObject(String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * @param key the key of the entry
+     * @return the files of the entry or <code>null</code> if there is no such
+     *         entry or some of its objects are missing
+     * @throws IOException if the entry can't be read
+     */
+    List<Entry> read(String key) throws IOException {
+        Path manifest = keys.resolve(key);
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ", 3);
+                if (parts.length != 3) {
+                    throw new IOException("Invalid cache entry " + manifest);
+                }
+                entries.add(new Entry(parts[2], parts[0], Long.parseLong(parts[1])));
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        for (Entry entry : entries) {
+            if (!Files.isRegularFile(getObject(entry.hash))) {
+                // evicted by a concurrent build
+                Files.deleteIfExists(manifest);
+                return null;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Marks an entry as used
+     *
+     * @param key the key of the entry
+     */
+    void touch(String key) {
+        try {
+            Files.setLastModifiedTime(keys.resolve(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only affects the order of eviction
+        }
+    }
+
+    /**
+     * Stores the content of a file unless an object with the same hash exists,
+     * an existing object is left untouched as it might be hard linked to
+     * restored outputs. If a concurrent eviction deletes it before the manifest
+     * referring to it is written, the entry is dropped the next time it is read.
+     *
+     * @param file the file to store
+     * @param hash the hash of the content
+     * @throws IOException if the file can't be stored
+     */
+    void put(Path file, String hash) throws IOException {
+        Path object = getObject(hash);
+        if (Files.exists(object)) {
+            return;
+        }
+        Files.createDirectories(object.getParent());
+        Path tmp = Files.createTempFile(object.getParent(), hash, ".tmp");
+        try {
+            Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+            long length = Files.size(tmp);
+            Files.move(tmp, object, StandardCopyOption.ATOMIC_MOVE);
+            if (size.get() >= 0) {
+                size.addAndGet(length);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // stored concurrently
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes the manifest of an entry, all objects must have been stored before
+     *
+     * @param key     the key of the entry
+     * @param entries the files of the entry
+     * @throws IOException if the manifest can't be written
+     */
+    void write(String key, List<Entry> entries) throws IOException {
+        Files.createDirectories(keys);
+        Path tmp = Files.createTempFile(keys, key, ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Entry entry : entries) {
+                    writer.write(entry.hash + " " + entry.size + " " + entry.path);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, keys.resolve(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries and their objects if the objects
+     * exceed the given size, eviction continues until 90% of the budget is
+     * reached so it does not happen again with the next stored entry
+     *
+     * @param maxSize the size budget in bytes
+     * @throws IOException if the store can't be read
+     */
+    synchronized void evict(long maxSize) throws IOException {
+        if (size.get() < 0) {
+            size.set(sizeOf(objects));
+        }
+        if (size.get() <= maxSize) {
+            return;
+        }
+        List<Path> manifests = new ArrayList<>();
+        if (Files.isDirectory(keys)) {
+            try (Stream<Path> stream = Files.list(keys)) {
+                stream.filter(p -> !p.getFileName().toString().endsWith(".tmp")).forEach(manifests::add);
+            }
+        }
+        Map<Path, FileTime> used = new HashMap<>();
+        for (Path manifest : manifests) {
+            used.put(manifest, getLastModifiedTime(manifest));
+        }
+        manifests.sort(Comparator.comparing(used::get));
+        // count the references to each object so shared objects are kept as long as
+        // any remaining entry needs them
+        Map<Path, List<Entry>> entries = new HashMap<>();
+        Map<String, Integer> references = new HashMap<>();
+        Map<String, Long> sizes = new HashMap<>();
+        long referenced = 0;
+        for (Path manifest : manifests) {
+            List<Entry> list = read(manifest.getFileName().toString());
+            if (list == null) {
+                continue;
+            }
+            entries.put(manifest, list);
+            for (Entry entry : list) {
+                if (references.merge(entry.hash, 1, Integer::sum) == 1) {
+                    sizes.put(entry.hash, entry.size);
+                    referenced += entry.size;
+                }
+            }
+        }
+        long target = maxSize / 10 * 9;
+        for (Path manifest : manifests) {
+            if (referenced <= target) {
+                break;
+            }
+            List<Entry> list = entries.remove(manifest);
+            Files.deleteIfExists(manifest);
+            if (list == null) {
+                continue;
+            }
+            for (Entry entry : list) {
+                if (references.merge(entry.hash, -1, Integer::sum) == 0) {
+                    references.remove(entry.hash);
+                    referenced -= sizes.get(entry.hash);
+                }
+            }
+        }
+        // delete all objects no longer referenced, including leftovers of
+        // interrupted stores but not the files currently stored by other builds
+        // whose manifest is not written yet
+        long remaining = 0;
+        long stale = System.currentTimeMillis() - STALE_MILLIS;
+        try (Stream<Path> stream = Files.walk(objects)) {
+            for (Path object : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+                String name = object.getFileName().toString();
+                if (references.containsKey(name)) {
+                    remaining += Files.size(object);
+                } else if (getLastModifiedTime(object).toMillis() < stale) {
+                    Files.deleteIfExists(object);
+                } else if (!name.endsWith(".tmp")) {
+                    remaining += Files.size(object);
+                }
+            }
+        }
+        size.set(remaining);
+    }
+
+    private static FileTime getLastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long total = 0;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+                total += Files.size(file);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @param file the file to hash
+     * @return the hex encoded SHA-256 hash of the content of the file
+     * @throws IOException if the file can't be read
+     */
+    static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream stream = Files.newInputStream(file)) {
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xf, 16);
+            chars[i * 2 + 1] = Character.forDigit(bytes[i] & 0xf, 16);
+        }
+        return new String(chars);
+    }
+}
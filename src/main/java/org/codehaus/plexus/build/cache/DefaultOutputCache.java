@@ -0,0 +1,308 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.cache;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.LegacySupport;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.BuildContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The default implementation keeps the outputs in a {@link ContentStore} in
+ * <code>~/.m2/plexus-build-cache</code> (or the directory given by the
+ * property <code>plexus.build.cache.directory</code>) that is shared by all
+ * builds of the user. Once the stored files exceed
+ * <code>plexus.build.cache.maxSize</code> (default 1024) megabytes the least
+ * recently used entries are evicted. Outputs are restored as copies, with
+ * <code>plexus.build.cache.hardLinks=true</code> hard links are used where the
+ * file system supports them. This is faster but the outputs must then never be
+ * modified in place as this would modify the stored content as well,
+ * {@link BuildContext#newFileOutputStream(java.io.File)} replaces such a link
+ * by a copy before the file is written. The cache
+ * can be disabled with <code>plexus.build.cache.enabled=false</code>.
+ * <p>
+ * The hashes of input files are remembered for the current build (identified
+ * by its request, that is shared by the per project copies of the session of a
+ * parallel build) as long as their size and modification time do not change,
+ * so inputs shared by several mojos are only read once.
+ * </p>
+ */
+@Named("default")
+@Singleton
+public class DefaultOutputCache implements OutputCache {
+
+    private static final String PREFIX = "plexus.build.cache.";
+
+    private final Logger logger = LoggerFactory.getLogger(DefaultOutputCache.class);
+
+    private final BuildContext buildContext;
+
+    private final LegacySupport legacySupport;
+
+    private final Map<Path, ContentStore> stores = new ConcurrentHashMap<>();
+
+    private volatile Object scope;
+
+    private volatile Map<Path, FileHash> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * @param buildContext  the build context to refresh restored outputs with
+     * @param legacySupport legacy support to get the current session
+     */
+    @Inject
+    public DefaultOutputCache(BuildContext buildContext, LegacySupport legacySupport) {
+        this.buildContext = buildContext;
+        this.legacySupport = legacySupport;
+    }
+
+    @Override
+    public KeyBuilder newKey(String producer) {
+        return new DefaultKeyBuilder(producer);
+    }
+
+    @Override
+    public boolean restore(CacheKey key, Path outputDirectory) throws IOException {
+        if (!isEnabled()) {
+            return false;
+        }
+        ContentStore store = getStore();
+        List<ContentStore.Entry> entries = store.read(key.getHash());
+        if (entries == null) {
+            logger.debug("No outputs cached for " + key);
+            return false;
+        }
+        boolean hardLinks = Boolean.parseBoolean(getProperty("hardLinks", "false"));
+        Path directory = outputDirectory.toAbsolutePath().normalize();
+        List<Path> restored = new ArrayList<>(entries.size());
+        try {
+            for (ContentStore.Entry entry : entries) {
+                Path target = directory.resolve(entry.path).normalize();
+                if (!target.startsWith(directory)) {
+                    throw new IOException("Cached output " + entry.path + " is outside of " + outputDirectory);
+                }
+                Files.createDirectories(target.getParent());
+                Path object = store.getObject(entry.hash);
+                restored.add(target);
+                if (!hardLinks || !link(object, target)) {
+                    Files.copy(object, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // evicted by a concurrent build after the entry was read, the mojo must
+            // not see a partial output
+            for (Path target : restored) {
+                Files.deleteIfExists(target);
+            }
+            buildContext.refresh(outputDirectory.toFile());
+            logger.debug("Outputs cached for " + key + " were evicted while restoring them");
+            return false;
+        }
+        store.touch(key.getHash());
+        buildContext.refresh(outputDirectory.toFile());
+        logger.debug("Restored " + entries.size() + " outputs cached for " + key + " to " + outputDirectory);
+        return true;
+    }
+
+    private static boolean link(Path object, Path target) {
+        try {
+            Files.deleteIfExists(target);
+            Files.createLink(target, object);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. a different file system, fall back to a copy
+            return false;
+        }
+    }
+
+    @Override
+    public void store(CacheKey key, Path outputDirectory) throws IOException {
+        if (!isEnabled() || !Files.isDirectory(outputDirectory)) {
+            return;
+        }
+        ContentStore store = getStore();
+        List<ContentStore.Entry> entries = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(outputDirectory)) {
+            for (Path file :
+                    (Iterable<Path>) stream.filter(Files::isRegularFile).sorted()::iterator) {
+                String hash = ContentStore.hash(file);
+                store.put(file, hash);
+                String path = outputDirectory.relativize(file).toString().replace('\\', '/');
+                entries.add(new ContentStore.Entry(path, hash, Files.size(file)));
+            }
+        }
+        store.write(key.getHash(), entries);
+        logger.debug("Cached " + entries.size() + " outputs of " + outputDirectory + " for " + key);
+        store.evict(Long.parseLong(getProperty("maxSize", "1024")) * 1024 * 1024);
+    }
+
+    private boolean isEnabled() {
+        return Boolean.parseBoolean(getProperty("enabled", "true"));
+    }
+
+    private ContentStore getStore() {
+        String directory = getProperty("directory", null);
+        Path path = directory == null
+                ? Paths.get(System.getProperty("user.home"), ".m2", "plexus-build-cache")
+                : Paths.get(directory);
+        return stores.computeIfAbsent(path.toAbsolutePath(), ContentStore::new);
+    }
+
+    private MavenSession getSession() {
+        return legacySupport == null ? null : legacySupport.getSession();
+    }
+
+    private String getProperty(String name, String defaultValue) {
+        MavenSession session = getSession();
+        String value = null;
+        if (session != null) {
+            value = session.getUserProperties().getProperty(PREFIX + name);
+            if (value == null) {
+                value = session.getSystemProperties().getProperty(PREFIX + name);
+            }
+        }
+        if (value == null) {
+            value = System.getProperty(PREFIX + name, defaultValue);
+        }
+        return value;
+    }
+
+    /**
+     * @param file the file to hash
+     * @return the hash of the content of the file, computed at most once per build
+     *         unless the file changes
+     * @throws IOException if the file can't be read
+     */
+    private String hash(Path file) throws IOException {
+        MavenSession session = getSession();
+        Object request = session == null ? null : session.getRequest();
+        if (request != scope) {
+            synchronized (this) {
+                if (request != scope) {
+                    hashes = new ConcurrentHashMap<>();
+                    scope = request;
+                }
+            }
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        FileHash cached = hashes.get(file);
+        if (cached != null && cached.matches(attributes)) {
+            return cached.hash;
+        }
+        FileHash hash = new FileHash(attributes, ContentStore.hash(file));
+        hashes.put(file, hash);
+        return hash.hash;
+    }
+
+    private static final class FileHash {
+
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        FileHash(BasicFileAttributes attributes, String hash) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.hash = hash;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    private final class DefaultKeyBuilder implements KeyBuilder {
+
+        private final String producer;
+        private final Path basedir;
+        private final Map<String, Path> inputs = new TreeMap<>();
+        private final Map<String, String> parameters = new TreeMap<>();
+
+        DefaultKeyBuilder(String producer) {
+            this.producer = producer;
+            MavenSession session = getSession();
+            MavenProject project = session == null ? null : session.getCurrentProject();
+            this.basedir = project == null || project.getBasedir() == null
+                    ? null
+                    : project.getBasedir().toPath().toAbsolutePath();
+        }
+
+        @Override
+        public KeyBuilder input(Path file) {
+            Path path = file.toAbsolutePath();
+            // inputs inside the project are identified relative to the project so the
+            // key is the same for other checkouts of the project
+            String location = basedir != null && path.startsWith(basedir)
+                    ? basedir.relativize(path).toString().replace('\\', '/')
+                    : path.toString();
+            inputs.put(location, path);
+            return this;
+        }
+
+        @Override
+        public KeyBuilder parameter(String name, Object value) {
+            parameters.put(name, String.valueOf(value));
+            return this;
+        }
+
+        @Override
+        public CacheKey build() throws IOException {
+            MessageDigest digest = ContentStore.newDigest();
+            update(digest, producer);
+            for (Entry<String, Path> input : inputs.entrySet()) {
+                update(digest, "input");
+                update(digest, input.getKey());
+                update(digest, hash(input.getValue()));
+            }
+            for (Entry<String, String> parameter : parameters.entrySet()) {
+                update(digest, "parameter");
+                update(digest, parameter.getKey());
+                update(digest, parameter.getValue());
+            }
+            return new CacheKey(ContentStore.toHex(digest.digest()));
+        }
+
+        private void update(MessageDigest digest, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // the length keeps "ab" + "c" apart from "a" + "bc"
+            digest.update((byte) (bytes.length >>> 24));
+            digest.update((byte) (bytes.length >>> 16));
+            digest.update((byte) (bytes.length >>> 8));
+            digest.update((byte) bytes.length);
+            digest.update(bytes);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * The {@link OutputCache} allows a mojo whose outputs only depend on its inputs
+ * (e.g. a code generator) to restore the outputs of a previous run instead of
+ * producing them again, even after a clean build or switching branches.
+ * <p>
+ * A mojo computes a {@link CacheKey} from everything its outputs depend on and
+ * then either {@link #restore(CacheKey, Path) restores} the outputs or produces
+ * them and {@link #store(CacheKey, Path) stores} them for the next time:
+ * </p>
+ *
+ * <pre>
+ * CacheKey key = cache.newKey("my-generator:1.0")
+ *         .inputs(sources)
+ *         .parameter("package", packageName)
+ *         .build();
+ * if (!cache.restore(key, outputDirectory)) {
+ *     generate(sources, outputDirectory);
+ *     cache.store(key, outputDirectory);
+ * }
+ * </pre>
+ */
+public interface OutputCache {
+
+    /**
+     * Starts a new key for the outputs of the given producer
+     *
+     * @param producer identifies what produces the outputs, should include a
+     *                 version so changes of the producer don't restore outputs of
+     *                 an older version
+     * @return a builder for the key
+     */
+    KeyBuilder newKey(String producer);
+
+    /**
+     * Restores the outputs stored for the given key, files in the output
+     * directory that are not part of the stored outputs are left untouched.
+     *
+     * @param key             the key of the outputs
+     * @param outputDirectory the directory to restore the outputs to
+     * @return <code>true</code> if the outputs where restored, <code>false</code>
+     *         if no outputs are stored for the key and they must be produced
+     * @throws IOException if restoring the outputs failed
+     */
+    boolean restore(CacheKey key, Path outputDirectory) throws IOException;
+
+    /**
+     * Stores all files of the output directory as outputs of the given key
+     *
+     * @param key             the key of the outputs
+     * @param outputDirectory the directory containing the outputs
+     * @throws IOException if storing the outputs failed
+     */
+    void store(CacheKey key, Path outputDirectory) throws IOException;
+
+    /**
+     * Collects everything the outputs depend on into a {@link CacheKey}
+     */
+    interface KeyBuilder {
+
+        /**
+         * Adds an input file, the key depends on the content and the location of
+         * the file (relative to the project if the file is inside the project)
+         *
+         * @param file the input file
+         * @return this builder
+         */
+        KeyBuilder input(Path file);
+
+        /**
+         * Adds several input files, the order of the files does not matter
+         *
+         * @param files the input files
+         * @return this builder
+         */
+        default KeyBuilder inputs(Collection<Path> files) {
+            for (Path file : files) {
+                input(file);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a parameter, the order of parameters does not matter
+         *
+         * @param name  the name of the parameter
+         * @param value the value of the parameter, its string representation is
+         *              used
+         * @return this builder
+         */
+        KeyBuilder parameter(String name, Object value);
+
+        /**
+         * @return the key for the current inputs and parameters
+         * @throws IOException if an input file can't be read
+         */
+        CacheKey build() throws IOException;
+    }
+}
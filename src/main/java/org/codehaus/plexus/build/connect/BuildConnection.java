@@ -12,7 +12,10 @@ See the Apache License Version 2.0 for the specific language governing permissio
 */
 package org.codehaus.plexus.build.connect;
 
+import java.util.function.BooleanSupplier;
+
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
 import org.codehaus.plexus.build.connect.messages.Message;
 
 /**
@@ -42,4 +45,32 @@ public interface BuildConnection {
      *         if they will be discarded
      */
     boolean isEnabled();
+
+    /**
+     * Like {@link #isEnabled()} but also checks if the other endpoint is
+     * interested in the given kind of message at all, so callers can avoid to
+     * create messages that would be discarded anyways.
+     *
+     * @param messageType the kind of message that should be send
+     * @return <code>true</code> if messages of the given kind will be send
+     */
+    default boolean isEnabled(Class<? extends Message> messageType) {
+        return isEnabled();
+    }
+
+    /**
+     * Returns a check if the other endpoint has requested to cancel the given
+     * session or mojo execution. The check is cheap enough to be polled
+     * frequently, it never communicates with the endpoint but reflects what the
+     * endpoint has reported with the replies of previous messages.
+     *
+     * @param mavenSession  the session to check
+     * @param mojoExecution the mojo execution to check or <code>null</code> to only
+     *                      check the session
+     * @return a check that returns <code>true</code> once cancellation was
+     *         requested
+     */
+    default BooleanSupplier getCancelRequest(MavenSession mavenSession, MojoExecution mojoExecution) {
+        return () -> false;
+    }
 }
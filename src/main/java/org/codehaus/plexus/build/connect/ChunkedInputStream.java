@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the chunks of a single message written by a {@link ChunkedOutputStream}
+ * so it can be decoded incrementally without buffering the whole message
+ * first. The stream reports the end of data once the last chunk of the message
+ * is consumed, closing the stream skips any unread data of the message but
+ * keeps the underlying connection open.
+ */
+final class ChunkedInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private int remaining;
+    private boolean last;
+    private long size;
+
+    /**
+     * @param in     the stream to read chunks from
+     * @param header the (already read) header of the first chunk
+     */
+    ChunkedInputStream(DataInputStream in, int header) {
+        this.in = in;
+        setHeader(header);
+    }
+
+    private void setHeader(int header) {
+        remaining = header & ChunkedOutputStream.LENGTH_MASK;
+        last = (header & ChunkedOutputStream.CONTINUATION) == 0;
+        size += Integer.BYTES + remaining;
+    }
+
+    /**
+     * @return the number of bytes of all chunks seen so far including the chunk
+     *         headers
+     */
+    long size() {
+        return size;
+    }
+
+    private boolean nextChunk() throws IOException {
+        while (remaining == 0) {
+            if (last) {
+                return false;
+            }
+            setHeader(in.readInt());
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int n = in.read(b, off, Math.min(len, remaining));
+        if (n < 0) {
+            throw new EOFException();
+        }
+        remaining -= n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return Math.min(remaining, in.available());
+    }
+
+    @Override
+    public void close() throws IOException {
+        while (nextChunk()) {
+            int n = in.skipBytes(remaining);
+            if (n == 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                n = 1;
+            }
+            remaining -= n;
+        }
+    }
+}
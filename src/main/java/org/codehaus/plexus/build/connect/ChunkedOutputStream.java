@@ -0,0 +1,117 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a single message as a sequence of chunk frames. Each frame consists of
+ * an <code>int</code> header followed by the chunk data, the lower 31 bits of
+ * the header hold the length of the chunk and the highest bit
+ * ({@link #CONTINUATION}) is set if more chunks of the same message follow. A
+ * message that fits into one chunk is therefore encoded exactly like the
+ * former single length prefixed frame, a header of <code>0</code> is reserved
+ * to signal the end of the connection.
+ */
+final class ChunkedOutputStream extends OutputStream {
+
+    /**
+     * Flag in the chunk header that marks that further chunks follow
+     */
+    static final int CONTINUATION = 0x80000000;
+
+    /**
+     * Mask to extract the chunk length from a chunk header
+     */
+    static final int LENGTH_MASK = 0x7fffffff;
+
+    /**
+     * The default size of chunks used by the connection
+     */
+    static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+    private final DataOutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private long size;
+
+    /**
+     * @param out       the stream to write the frames to
+     * @param chunkSize the maximum size of a single chunk
+     */
+    ChunkedOutputStream(DataOutputStream out, int chunkSize) {
+        this.out = out;
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeChunk(true);
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == buffer.length) {
+                // only emit a full chunk once we know more data follows, so the
+                // last chunk never needs to be an empty frame
+                writeChunk(true);
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the last chunk of the message and flushes the underlying stream, the
+     * stream can be used to write another message afterwards.
+     *
+     * @return the number of bytes of the message including the chunk headers
+     * @throws IOException if writing failed
+     */
+    long finish() throws IOException {
+        if (count == 0) {
+            throw new IllegalStateException("empty messages can not be framed");
+        }
+        writeChunk(false);
+        out.flush();
+        long written = size;
+        size = 0;
+        return written;
+    }
+
+    private void writeChunk(boolean more) throws IOException {
+        out.writeInt(more ? count | CONTINUATION : count);
+        out.write(buffer, 0, count);
+        size += Integer.BYTES + count;
+        count = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // chunks are only written on finish or if the buffer is full
+    }
+
+    @Override
+    public void close() throws IOException {
+        // never close the underlying connection stream
+    }
+}
@@ -0,0 +1,86 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared by all connections of a {@link TcpBuildConnection} to stop sending
+ * messages once the other endpoint repeatedly failed to answer in time. After
+ * the given number of consecutive failures the breaker opens and all sends are
+ * discarded until the backoff has elapsed, then a single send is allowed to
+ * probe the endpoint. Each further failure doubles the backoff up to the given
+ * maximum, a successful send closes the breaker again.
+ */
+final class CircuitBreaker {
+
+    private final int threshold;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    private volatile long retryAt;
+
+    /**
+     * @param threshold      number of consecutive failures that open the breaker
+     * @param initialBackoff the time in milliseconds to wait after the breaker
+     *                       opened
+     * @param maxBackoff     the maximum time in milliseconds to wait between two
+     *                       probes
+     */
+    CircuitBreaker(int threshold, long initialBackoff, long maxBackoff) {
+        this.threshold = Math.max(1, threshold);
+        this.initialBackoff = TimeUnit.MILLISECONDS.toNanos(Math.max(1, initialBackoff));
+        this.maxBackoff = TimeUnit.MILLISECONDS.toNanos(Math.max(initialBackoff, maxBackoff));
+    }
+
+    /**
+     * @return <code>true</code> if sends are currently discarded
+     */
+    boolean isOpen() {
+        return failures.get() >= threshold && System.nanoTime() - retryAt < 0;
+    }
+
+    /**
+     * Must be called before a send, if <code>true</code> is returned the caller
+     * must report the outcome with {@link #success()} or {@link #failure()}
+     *
+     * @return <code>true</code> if the send should be performed
+     */
+    boolean allow() {
+        if (failures.get() < threshold) {
+            return true;
+        }
+        if (System.nanoTime() - retryAt < 0) {
+            return false;
+        }
+        return probing.compareAndSet(false, true);
+    }
+
+    void success() {
+        failures.set(0);
+        probing.set(false);
+    }
+
+    void failure() {
+        int count = failures.incrementAndGet();
+        if (count >= threshold) {
+            int shift = Math.min(count - threshold, 62);
+            long backoff = initialBackoff > (maxBackoff >> shift) ? maxBackoff : initialBackoff << shift;
+            retryAt = System.nanoTime() + backoff;
+        }
+        probing.set(false);
+    }
+}
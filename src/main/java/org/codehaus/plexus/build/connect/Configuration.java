@@ -12,6 +12,7 @@ See the Apache License Version 2.0 for the specific language governing permissio
 */
 package org.codehaus.plexus.build.connect;
 
+import org.apache.maven.execution.ExecutionEvent.Type;
 import org.codehaus.plexus.build.connect.messages.Message;
 
 /**
@@ -24,12 +25,43 @@ public interface Configuration {
      */
     public static final String CONFIG_SEND_PROJECTS = "sendProjectInfos";
 
+    /**
+     * A comma separated list of {@link Type} names the server wants to receive,
+     * if not given all events are send
+     */
+    public static final String CONFIG_EVENT_TYPES = "eventTypes";
+
+    /**
+     * A comma separated list of message kinds (the simple name of the message
+     * class, e.g. <code>RefreshMessage</code>) the server wants to receive, if not
+     * given all kinds of messages are send
+     */
+    public static final String CONFIG_MESSAGE_TYPES = "messageTypes";
+
     /**
      * @return <code>true</code> if {@link #CONFIG_SEND_PROJECTS} is
      *         provided
      */
     public boolean isSendProjects();
 
+    /**
+     * @param eventType the type of the event
+     * @return <code>true</code> if the server has subscribed to the given event
+     *         type, see {@link #CONFIG_EVENT_TYPES}
+     */
+    public default boolean isSubscribed(Type eventType) {
+        return true;
+    }
+
+    /**
+     * @param messageType the kind of message
+     * @return <code>true</code> if the server has subscribed to the given kind of
+     *         message, see {@link #CONFIG_MESSAGE_TYPES}
+     */
+    public default boolean isSubscribed(Class<? extends Message> messageType) {
+        return true;
+    }
+
     /**
      * Creates a Configuration from a message
      *
@@ -37,12 +69,6 @@ public interface Configuration {
      * @return the configuration backed by the message payload
      */
     public static Configuration of(Message message) {
-        return new Configuration() {
-
-            @Override
-            public boolean isSendProjects() {
-                return message.getBooleanProperty(CONFIG_SEND_PROJECTS, false);
-            }
-        };
+        return new MessageConfiguration(message);
     }
 }
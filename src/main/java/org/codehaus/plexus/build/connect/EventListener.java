@@ -16,6 +16,10 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.apache.maven.eventspy.EventSpy;
 import org.apache.maven.execution.ExecutionEvent;
 import org.apache.maven.execution.ExecutionEvent.Type;
@@ -26,16 +30,34 @@ import org.codehaus.plexus.build.connect.messages.MojoMessage;
 import org.codehaus.plexus.build.connect.messages.ProjectMessage;
 import org.codehaus.plexus.build.connect.messages.ProjectsMessage;
 import org.codehaus.plexus.build.connect.messages.SessionMessage;
+import org.codehaus.plexus.build.connect.messages.TimingsMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * Listen to all maven events and forward them to the endpoint
+ * Listen to all maven events and forward them to the endpoint. If the endpoint
+ * subscribes to the {@link TimingsMessage} or the property
+ * <code>plexus.build.timings</code> is set to a file (relative to the execution
+ * root directory) the durations of all projects and mojos are recorded and a
+ * summary including the critical path of the reactor is send when the session
+ * ends or written to that file.
  */
 @Named
 @Singleton
 public class EventListener implements EventSpy {
 
+    /**
+     * The user or system property to set to a file the timings report should be
+     * written to
+     */
+    public static final String TIMINGS_REPORT = "plexus.build.timings";
+
+    private final Logger logger = LoggerFactory.getLogger(EventListener.class);
+
     private BuildConnection connection;
     private Configuration configuration;
+    private volatile ReactorTimings timings;
+    private volatile Path timingsReport;
 
     /**
      * Creates endpoint for the given connection
@@ -57,38 +79,116 @@ public class EventListener implements EventSpy {
 
     @Override
     public void onEvent(Object event) throws Exception {
-        if (configuration == null) {
+        if (event instanceof ExecutionEvent) {
+            ExecutionEvent executionEvent = (ExecutionEvent) event;
+            recordTimings(executionEvent);
+            if (configuration != null) {
+                handleExecutionEvent(executionEvent);
+            }
+        }
+    }
+
+    private void recordTimings(ExecutionEvent event) {
+        Type type = event.getType();
+        if (type == Type.SessionStarted) {
+            MavenSession session = event.getSession();
+            timingsReport = getTimingsReport(session);
+            if (timingsReport != null || (configuration != null && configuration.isSubscribed(TimingsMessage.class))) {
+                timings = new ReactorTimings();
+            } else {
+                timings = null;
+            }
             return;
         }
-        if (event instanceof ExecutionEvent) {
-            handleExecutionEvent((ExecutionEvent) event);
+        ReactorTimings timings = this.timings;
+        if (timings == null) {
+            return;
+        }
+        switch (type) {
+            case ProjectStarted:
+                timings.projectStarted(event.getProject());
+                break;
+            case ProjectFailed:
+            case ProjectSucceeded:
+                timings.projectEnded(event.getProject());
+                break;
+            case MojoStarted:
+                timings.mojoStarted(event.getProject(), event.getMojoExecution());
+                break;
+            case MojoFailed:
+            case MojoSucceeded:
+                timings.mojoEnded(event.getMojoExecution());
+                break;
+            case SessionEnded:
+                this.timings = null;
+                reportTimings(timings, event.getSession());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void reportTimings(ReactorTimings timings, MavenSession session) {
+        TimingsMessage message = timings.summarize(session);
+        if (timingsReport != null) {
+            try {
+                ReactorTimings.writeReport(message, timingsReport);
+            } catch (IOException e) {
+                logger.warn("Can't write timings report to " + timingsReport, e);
+            }
+        }
+        if (configuration != null && configuration.isSubscribed(TimingsMessage.class)) {
+            connection.send(message, session);
+        }
+    }
+
+    private static Path getTimingsReport(MavenSession session) {
+        String value = session.getUserProperties().getProperty(TIMINGS_REPORT);
+        if (value == null) {
+            value = session.getSystemProperties().getProperty(TIMINGS_REPORT);
+        }
+        if (value == null || value.trim().isEmpty()) {
+            return null;
         }
+        String root = session.getExecutionRootDirectory();
+        return root == null ? Paths.get(value) : Paths.get(root).resolve(value);
     }
 
     private void handleExecutionEvent(ExecutionEvent event) {
-        MavenSession session = event.getSession();
         Type type = event.getType();
+        if (!configuration.isSubscribed(type)) {
+            return;
+        }
+        MavenSession session = event.getSession();
         switch (type) {
             case SessionStarted:
-                connection.send(new SessionMessage(session, true), session);
-                if (configuration.isSendProjects()) {
+                if (configuration.isSubscribed(SessionMessage.class)) {
+                    connection.send(new SessionMessage(session, true), session);
+                }
+                if (configuration.isSendProjects() && configuration.isSubscribed(ProjectsMessage.class)) {
                     connection.send(new ProjectsMessage(session.getProjects()), session);
                 }
                 break;
             case SessionEnded:
-                connection.send(new SessionMessage(session, false), session);
+                if (configuration.isSubscribed(SessionMessage.class)) {
+                    connection.send(new SessionMessage(session, false), session);
+                }
                 break;
             case ProjectStarted:
             case ProjectFailed:
             case ProjectSkipped:
             case ProjectSucceeded:
-                connection.send(new ProjectMessage(event.getProject(), type), session);
+                if (configuration.isSubscribed(ProjectMessage.class)) {
+                    connection.send(new ProjectMessage(event.getProject(), type), session);
+                }
                 break;
             case MojoStarted:
             case MojoFailed:
             case MojoSkipped:
             case MojoSucceeded:
-                connection.send(new MojoMessage(event.getMojoExecution(), type), session);
+                if (configuration.isSubscribed(MojoMessage.class)) {
+                    connection.send(new MojoMessage(event.getMojoExecution(), type), session);
+                }
                 break;
             default:
                 break;
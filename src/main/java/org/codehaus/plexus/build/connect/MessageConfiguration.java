@@ -0,0 +1,79 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.maven.execution.ExecutionEvent.Type;
+import org.codehaus.plexus.build.connect.messages.Message;
+
+/**
+ * {@link Configuration} backed by the payload of the reply to the InitMessage,
+ * the subscriptions are parsed once so checking them is cheap enough to be done
+ * for every event.
+ */
+final class MessageConfiguration implements Configuration {
+
+    private final boolean sendProjects;
+    private final Set<Type> eventTypes;
+    private final Set<String> messageTypes;
+
+    MessageConfiguration(Message message) {
+        sendProjects = message.getBooleanProperty(CONFIG_SEND_PROJECTS, false);
+        eventTypes = parseEventTypes(message.getProperty(CONFIG_EVENT_TYPES));
+        messageTypes = parseMessageTypes(message.getProperty(CONFIG_MESSAGE_TYPES));
+    }
+
+    @Override
+    public boolean isSendProjects() {
+        return sendProjects;
+    }
+
+    @Override
+    public boolean isSubscribed(Type eventType) {
+        return eventTypes == null || eventTypes.contains(eventType);
+    }
+
+    @Override
+    public boolean isSubscribed(Class<? extends Message> messageType) {
+        return messageTypes == null || messageTypes.contains(messageType.getSimpleName());
+    }
+
+    private static Set<Type> parseEventTypes(String value) {
+        if (value == null) {
+            return null;
+        }
+        Set<Type> set = EnumSet.noneOf(Type.class);
+        for (String name : value.split(",")) {
+            try {
+                set.add(Type.valueOf(name.trim()));
+            } catch (IllegalArgumentException e) {
+                // unknown to this maven version
+            }
+        }
+        return set;
+    }
+
+    private static Set<String> parseMessageTypes(String value) {
+        if (value == null) {
+            return null;
+        }
+        Set<String> set = new HashSet<>();
+        for (String name : value.split(",")) {
+            set.add(name.trim());
+        }
+        return set;
+    }
+}
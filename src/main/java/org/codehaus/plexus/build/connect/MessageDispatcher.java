@@ -0,0 +1,311 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.codehaus.plexus.build.connect.messages.InitMessage;
+import org.codehaus.plexus.build.connect.messages.Message;
+import org.codehaus.plexus.build.connect.messages.MojoMessage;
+import org.codehaus.plexus.build.connect.messages.ProgressMessage;
+import org.codehaus.plexus.build.connect.messages.ProjectMessage;
+import org.codehaus.plexus.build.connect.messages.RefreshMessage;
+import org.codehaus.plexus.build.connect.messages.SessionMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches messages received by a {@link TcpBuildConnection.ServerConnection}
+ * to a consumer using a pool of worker threads. Messages of the same session
+ * are always delivered in the order they where received, while messages of
+ * different sessions are processed in parallel. Each session has a bounded
+ * queue, if it is full the configured {@link OverflowPolicy} decides what
+ * happens with non critical messages (see {@link #isCritical(Message)}),
+ * critical messages are never dropped and block the sending maven thread until
+ * there is room in the queue again.
+ * <p>
+ * Only messages where the maven process makes use of the reply (see
+ * {@link #isReplyRequired(Message)}) block until the consumer has processed
+ * them, all other messages are acknowledged as soon as they are queued. An
+ * exception thrown by the consumer is logged and does not affect the delivery
+ * of further messages.
+ * </p>
+ */
+public final class MessageDispatcher implements Function<Message, Map<String, String>>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageDispatcher.class);
+
+    /**
+     * The number of messages a worker delivers for one session before it gives
+     * other sessions a chance to run
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final Function<Message, Map<String, String>> consumer;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ExecutorService executor;
+    private final Map<String, SessionQueue> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a new dispatcher
+     *
+     * @param consumer      the consumer to deliver messages to, see
+     *                      {@link TcpBuildConnection#createServer(Function)}
+     * @param threads       the number of worker threads to use
+     * @param capacity      the maximum number of pending messages per session
+     * @param policy        the policy to apply for non critical messages if the
+     *                      queue of a session is full
+     */
+    public MessageDispatcher(
+            Function<Message, Map<String, String>> consumer, int threads, int capacity, OverflowPolicy policy) {
+        if (threads < 1 || capacity < 1) {
+            throw new IllegalArgumentException("threads and capacity must be positive");
+        }
+        this.consumer = consumer;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public Map<String, String> apply(Message message) {
+        SessionQueue queue = sessions.computeIfAbsent(message.getSessionId(), SessionQueue::new);
+        if (isReplyRequired(message)) {
+            CompletableFuture<Map<String, String>> reply = new CompletableFuture<>();
+            if (queue.offer(new Delivery(message, reply))) {
+                try {
+                    return reply.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // already logged by the worker
+                }
+            }
+            return null;
+        }
+        queue.offer(new Delivery(message, null));
+        return null;
+    }
+
+    /**
+     * @return the number of messages that where dropped or coalesced because a
+     *         queue was full
+     */
+    public long getDroppedMessages() {
+        return dropped.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (SessionQueue queue : sessions.values()) {
+            queue.discard();
+        }
+    }
+
+    /**
+     * Determines if a message must never be dropped, these are all messages that
+     * mark the begin or end of a session, the failure of a project or mojo, the
+     * final progress of a mojo and all messages not known to this dispatcher.
+     *
+     * @param message the message to check
+     * @return <code>true</code> if the message is critical
+     */
+    public static boolean isCritical(Message message) {
+        if (message instanceof RefreshMessage) {
+            return false;
+        }
+        if (message instanceof ProgressMessage) {
+            return ((ProgressMessage) message).isDone();
+        }
+        if (message instanceof MojoMessage) {
+            return ((MojoMessage) message).getType() == MojoMessage.EventType.MojoFailed;
+        }
+        if (message instanceof ProjectMessage) {
+            return ((ProjectMessage) message).getType() == ProjectMessage.EventType.ProjectFailed;
+        }
+        return true;
+    }
+
+    /**
+     * Determines if the maven process makes use of the reply of a message and the
+     * message therefore needs to be processed before the reply is send.
+     *
+     * @param message the message to check
+     * @return <code>true</code> if the reply of the consumer is required
+     */
+    public static boolean isReplyRequired(Message message) {
+        return message instanceof InitMessage;
+    }
+
+    private static Map<String, String> payload(Message message) {
+        Map<String, String> map = new LinkedHashMap<>();
+        message.keys().forEach(key -> map.put(key, message.getProperty(key)));
+        return map;
+    }
+
+    /**
+     * Describes what happens to a non critical message if the queue of a session
+     * is full
+     */
+    public static enum OverflowPolicy {
+        /**
+         * Block the sending maven thread until there is room in the queue
+         */
+        BLOCK,
+        /**
+         * Drop the message
+         */
+        DROP,
+        /**
+         * Drop the message if an equal message (same type and payload) is already
+         * pending in the queue, otherwise block like {@link #BLOCK}
+         */
+        COALESCE;
+    }
+
+    private static final class Delivery {
+        private final Message message;
+        private final CompletableFuture<Map<String, String>> reply;
+
+        Delivery(Message message, CompletableFuture<Map<String, String>> reply) {
+            this.message = message;
+            this.reply = reply;
+        }
+    }
+
+    private final class SessionQueue implements Runnable {
+
+        private final String sessionId;
+        private final ArrayDeque<Delivery> queue = new ArrayDeque<>();
+        private boolean scheduled;
+
+        SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized boolean offer(Delivery delivery) {
+            while (queue.size() >= capacity) {
+                if (!isCritical(delivery.message)) {
+                    if (policy == OverflowPolicy.DROP
+                            || (policy == OverflowPolicy.COALESCE && isPending(delivery.message))) {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            queue.add(delivery);
+            if (!scheduled) {
+                scheduled = true;
+                schedule();
+            }
+            return true;
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // dispatcher was closed
+                discard();
+            }
+        }
+
+        private boolean isPending(Message message) {
+            Map<String, String> payload = null;
+            for (Iterator<Delivery> iterator = queue.iterator(); iterator.hasNext(); ) {
+                Message pending = iterator.next().message;
+                if (pending.getClass() == message.getClass()) {
+                    if (payload == null) {
+                        payload = payload(message);
+                    }
+                    if (payload.equals(payload(pending))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private synchronized Delivery poll() {
+            Delivery delivery = queue.poll();
+            if (delivery == null) {
+                scheduled = false;
+            } else {
+                notifyAll();
+            }
+            return delivery;
+        }
+
+        synchronized void discard() {
+            for (Delivery delivery : queue) {
+                if (delivery.reply != null) {
+                    delivery.reply.complete(null);
+                }
+            }
+            queue.clear();
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Delivery delivery = poll();
+                if (delivery == null) {
+                    return;
+                }
+                deliver(delivery);
+            }
+            schedule();
+        }
+
+        private void deliver(Delivery delivery) {
+            Message message = delivery.message;
+            try {
+                Map<String, String> payload = consumer.apply(message);
+                if (delivery.reply != null) {
+                    delivery.reply.complete(payload);
+                }
+            } catch (Throwable e) {
+                // also errors (e.g. a NoClassDefFoundError in the consumer) must not leave the
+                // queue scheduled forever and the sender waiting for the reply
+                LOGGER.warn("Consumer failed to handle message " + message, e);
+                if (delivery.reply != null) {
+                    delivery.reply.completeExceptionally(e);
+                }
+            }
+            if (message instanceof SessionMessage && !((SessionMessage) message).isSessionStart()) {
+                sessions.remove(sessionId, this);
+            }
+        }
+    }
+}
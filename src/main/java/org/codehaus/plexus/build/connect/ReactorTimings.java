@@ -0,0 +1,216 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.ProjectDependencyGraph;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.connect.messages.TimingsMessage;
+
+/**
+ * Records the (monotonic) durations of all projects and mojo executions of a
+ * session to compute the critical path of the reactor and how well the
+ * available threads where used. Recording is safe to be called concurrently
+ * from the threads of a parallel build.
+ */
+final class ReactorTimings {
+
+    private final long start = System.nanoTime();
+    private final Map<MavenProject, Interval> projects = new ConcurrentHashMap<>();
+    private final Map<MojoExecution, Interval> mojos = new ConcurrentHashMap<>();
+
+    void projectStarted(MavenProject project) {
+        projects.put(project, new Interval(id(project)));
+    }
+
+    void projectEnded(MavenProject project) {
+        Interval interval = projects.get(project);
+        if (interval != null) {
+            interval.end();
+        }
+    }
+
+    void mojoStarted(MavenProject project, MojoExecution execution) {
+        mojos.put(execution, new Interval(id(project) + '/' + id(execution)));
+    }
+
+    void mojoEnded(MojoExecution execution) {
+        Interval interval = mojos.get(execution);
+        if (interval != null) {
+            interval.end();
+        }
+    }
+
+    /**
+     * Computes the summary of the session, must be called once all projects are
+     * finished
+     *
+     * @param session the session to compute the summary for
+     * @return the summary as a message
+     */
+    TimingsMessage summarize(MavenSession session) {
+        long wallTime = millis(System.nanoTime() - start);
+        Map<String, Long> projectTimes = new LinkedHashMap<>();
+        List<String> criticalPath = Collections.emptyList();
+        ProjectDependencyGraph graph = session.getProjectDependencyGraph();
+        List<MavenProject> sorted = graph == null ? session.getProjects() : graph.getSortedProjects();
+        if (sorted != null) {
+            for (MavenProject project : sorted) {
+                Interval interval = projects.get(project);
+                if (interval != null) {
+                    projectTimes.put(interval.id, interval.millis());
+                }
+            }
+            criticalPath = criticalPath(graph, sorted);
+        }
+        Map<String, Long> mojoTimes = new LinkedHashMap<>();
+        mojos.values().stream()
+                .sorted((i1, i2) -> Long.compare(i1.start, i2.start))
+                .forEach(interval -> mojoTimes.put(interval.id, interval.millis()));
+        return new TimingsMessage(wallTime, threads(session), criticalPath, projectTimes, mojoTimes);
+    }
+
+    /**
+     * The critical path is the longest path (weighted by the project durations)
+     * through the dependency graph, as the projects are sorted topologically the
+     * longest path ending in each project can be computed in a single pass.
+     */
+    private List<String> criticalPath(ProjectDependencyGraph graph, List<MavenProject> sorted) {
+        Map<MavenProject, Long> length = new HashMap<>();
+        Map<MavenProject, MavenProject> predecessor = new HashMap<>();
+        MavenProject last = null;
+        for (MavenProject project : sorted) {
+            long best = 0;
+            if (graph != null) {
+                for (MavenProject upstream : graph.getUpstreamProjects(project, false)) {
+                    Long upstreamLength = length.get(upstream);
+                    if (upstreamLength != null && upstreamLength > best) {
+                        best = upstreamLength;
+                        predecessor.put(project, upstream);
+                    }
+                }
+            }
+            Interval interval = projects.get(project);
+            long total = best + (interval == null ? 0 : interval.nanos());
+            length.put(project, total);
+            if (last == null || total > length.get(last)) {
+                last = project;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        for (MavenProject project = last; project != null; project = predecessor.get(project)) {
+            if (projects.containsKey(project)) {
+                path.add(id(project));
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Writes a human readable report of the summary
+     *
+     * @param message the summary to write
+     * @param file    the file to write to
+     * @throws IOException if writing failed
+     */
+    static void writeReport(TimingsMessage message, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(String.format(
+                    Locale.ROOT,
+                    "Wall time: %d ms, threads: %d, utilization: %.1f%%%n",
+                    message.getWallTime(),
+                    message.getThreads(),
+                    message.getUtilization() * 100));
+            writer.write(String.format(Locale.ROOT, "Critical path: %d ms%n", message.getCriticalPathTime()));
+            Map<String, Long> projectTimes = message.getProjectTimes();
+            for (String id : message.getCriticalPath()) {
+                writer.write(String.format(Locale.ROOT, "  %8d ms  %s%n", projectTimes.get(id), id));
+            }
+            writer.write(String.format(Locale.ROOT, "Projects:%n"));
+            for (Entry<String, Long> entry : projectTimes.entrySet()) {
+                writer.write(String.format(Locale.ROOT, "  %8d ms  %s%n", entry.getValue(), entry.getKey()));
+            }
+            writer.write(String.format(Locale.ROOT, "Mojos:%n"));
+            for (Entry<String, Long> entry : message.getMojoTimes().entrySet()) {
+                writer.write(String.format(Locale.ROOT, "  %8d ms  %s%n", entry.getValue(), entry.getKey()));
+            }
+        }
+    }
+
+    private static int threads(MavenSession session) {
+        if (session.getRequest() != null) {
+            return Math.max(1, session.getRequest().getDegreeOfConcurrency());
+        }
+        return 1;
+    }
+
+    private static String id(MavenProject project) {
+        return project.getGroupId() + ':' + project.getArtifactId();
+    }
+
+    private static String id(MojoExecution execution) {
+        return execution.getArtifactId() + ':' + execution.getGoal() + '@' + execution.getExecutionId();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Interval {
+
+        private final String id;
+        private final long start = System.nanoTime();
+        private volatile long duration = -1;
+
+        Interval(String id) {
+            this.id = id;
+        }
+
+        void end() {
+            duration = System.nanoTime() - start;
+        }
+
+        /**
+         * @return the duration or <code>0</code> if the interval has not ended
+         */
+        long nanos() {
+            return Math.max(0, duration);
+        }
+
+        long millis() {
+            return ReactorTimings.millis(nanos());
+        }
+    }
+}
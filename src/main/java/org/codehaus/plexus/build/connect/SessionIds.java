@@ -0,0 +1,150 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.build.connect.messages.Message;
+
+/**
+ * Assigns each {@link MavenSession} a random id and keeps it already encoded
+ * for the message header together with the cancellation state the endpoint
+ * reported for the session. A session is identified by its request, so the per
+ * project copies of the session of a parallel build share the id and a
+ * cancellation of the session stops the whole build. Requests are weakly
+ * referenced and compared by identity, lookups never take a monitor and
+ * callers are expected to cache the result per thread so the map is only
+ * consulted once a thread sees a new session.
+ */
+final class SessionIds {
+
+    private final ConcurrentMap<Key, SessionState> ids = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    /**
+     * @param session the session to get the state for
+     * @return the state of the session
+     */
+    SessionState get(MavenSession session) {
+        expunge();
+        Object request = session.getRequest() == null ? session : session.getRequest();
+        SessionState state = ids.get(new Key(request, null));
+        if (state == null) {
+            state = ids.computeIfAbsent(
+                    new Key(request, queue),
+                    k -> new SessionState(
+                            Message.encodeSessionId(UUID.randomUUID().toString())));
+        }
+        return state;
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            ids.remove(reference);
+        }
+    }
+
+    /**
+     * The encoded id of a session and whether the endpoint has requested to
+     * cancel the session or some of its mojos, the state is updated from the
+     * replies and can be checked with a volatile read.
+     */
+    static final class SessionState {
+
+        /**
+         * the encoded id of the session, see {@link Message#encodeSessionId(String)}
+         */
+        final byte[] id;
+
+        private volatile boolean cancelled;
+        private volatile Set<String> cancelledMojos = Collections.emptySet();
+        private String cancelledMojosValue;
+
+        SessionState(byte[] id) {
+            this.id = id;
+        }
+
+        /**
+         * Updates the cancellation state from a reply of the endpoint
+         *
+         * @param reply the reply
+         */
+        void update(Message reply) {
+            if (!cancelled && reply.getBooleanProperty(TcpBuildConnection.CANCEL)) {
+                cancelled = true;
+            }
+            String mojos = reply.getProperty(TcpBuildConnection.CANCEL_MOJOS);
+            if (mojos != null) {
+                synchronized (this) {
+                    if (!mojos.equals(cancelledMojosValue)) {
+                        cancelledMojosValue = mojos;
+                        cancelledMojos = new HashSet<>(Arrays.asList(mojos.split(",")));
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param mojo the key of a mojo, see
+         *             {@link org.codehaus.plexus.build.connect.messages.ProgressMessage#mojoKey(String, String, String, String, String)}
+         *             or <code>null</code> to only check the session
+         * @return <code>true</code> if the endpoint has requested to cancel the
+         *         session or the given mojo
+         */
+        boolean isCancelled(String mojo) {
+            if (cancelled) {
+                return true;
+            }
+            Set<String> mojos = cancelledMojos;
+            return mojo != null && !mojos.isEmpty() && mojos.contains(mojo);
+        }
+    }
+
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        Key(Object request, ReferenceQueue<Object> queue) {
+            super(request, queue);
+            hash = System.identityHashCode(request);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Object referent = get();
+                return referent != null && referent == ((Key) obj).get();
+            }
+            return false;
+        }
+    }
+}
@@ -12,69 +12,172 @@ See the Apache License Version 2.0 for the specific language governing permissio
 */
 package org.codehaus.plexus.build.connect;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.codehaus.plexus.build.connect.SessionIds.SessionState;
+import org.codehaus.plexus.build.connect.messages.InitMessage;
 import org.codehaus.plexus.build.connect.messages.Message;
+import org.codehaus.plexus.build.connect.messages.ProgressMessage;
+import org.codehaus.plexus.build.connect.messages.SessionMessage;
+import org.codehaus.plexus.build.metrics.BuildEvents;
+import org.codehaus.plexus.build.metrics.BuildMetrics;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Counter;
+import org.codehaus.plexus.build.metrics.BuildMetrics.Timer;
 
 /**
  * Default implementation using the system property
  * <code>plexus.build.ipc.port</code> to communicate with an endpoint to
- * exchange messages
+ * exchange messages. Connecting is bounded by the system property
+ * <code>plexus.build.ipc.connectTimeout</code>, writing a message and waiting
+ * for its reply are each bounded by <code>plexus.build.ipc.replyTimeout</code>
+ * (in milliseconds), a write that exceeds the timeout because the endpoint
+ * does not read closes the connection. Failed connections are reestablished
+ * with the next message. If the endpoint fails
+ * <code>plexus.build.ipc.failureThreshold</code> times in a row all messages
+ * are discarded for an exponentially growing time starting at
+ * <code>plexus.build.ipc.backoff</code> up to
+ * <code>plexus.build.ipc.maxBackoff</code> milliseconds.
+ * <p>
+ * The endpoint can request to cancel a session or mojo execution (see
+ * {@link ServerConnection#cancel(String)}), the request is transferred with the
+ * reply to the next message of the session.
+ * </p>
  */
 @Named("default")
 @Singleton
 public class TcpBuildConnection implements BuildConnection {
     private static final String PLEXUS_BUILD_IPC_PORT = "plexus.build.ipc.port";
 
-    private static final int PORT = Integer.getInteger(PLEXUS_BUILD_IPC_PORT, 0);
+    /**
+     * Reply property set if the session was cancelled
+     */
+    static final String CANCEL = "cancel";
+
+    /**
+     * Reply property holding the comma separated keys of cancelled mojos
+     */
+    static final String CANCEL_MOJOS = "cancelMojos";
+
+    private final int port = Integer.getInteger(PLEXUS_BUILD_IPC_PORT, 0);
+
+    private final int connectTimeout = Integer.getInteger("plexus.build.ipc.connectTimeout", 5000);
+
+    private final int replyTimeout = Integer.getInteger("plexus.build.ipc.replyTimeout", 10000);
+
+    private final CircuitBreaker breaker = new CircuitBreaker(
+            Integer.getInteger("plexus.build.ipc.failureThreshold", 3),
+            Long.getLong("plexus.build.ipc.backoff", 100),
+            Long.getLong("plexus.build.ipc.maxBackoff", 30000));
+
+    private final WriteWatchdog watchdog = new WriteWatchdog(replyTimeout);
+
+    private final SessionIds sessionIds = new SessionIds();
 
-    private final Map<MavenSession, String> sessionMap = new WeakHashMap<>();
+    private final ThreadLocal<TcpClientConnection> connections = ThreadLocal.withInitial(TcpClientConnection::new);
 
-    private final ThreadLocal<TcpClientConnection> connections =
-            ThreadLocal.withInitial(() -> new TcpClientConnection());
+    private final BuildMetrics metrics;
+
+    private volatile Configuration configuration;
+
+    /**
+     * Creates a connection that does not record any metrics
+     */
+    public TcpBuildConnection() {
+        this(BuildMetrics.NOOP);
+    }
+
+    /**
+     * @param metrics the metrics to record messages and round trip times to
+     */
+    @Inject
+    public TcpBuildConnection(BuildMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @Override
     public boolean isEnabled() {
-        return PORT > 0;
+        return port > 0 && !breaker.isOpen();
+    }
+
+    @Override
+    public boolean isEnabled(Class<? extends Message> messageType) {
+        if (isEnabled()) {
+            Configuration configuration = this.configuration;
+            return configuration == null || configuration.isSubscribed(messageType);
+        }
+        return false;
     }
 
     @Override
     public Message send(Message message, MavenSession mavenSession) {
         if (isEnabled()) {
-            String sessionId = getId(mavenSession);
-            byte[] messageBytes = message.serialize(sessionId);
-            byte[] replyBytes = connections.get().send(messageBytes);
-            if (replyBytes.length > 0) {
-                return Message.decode(replyBytes);
+            TcpClientConnection client = connections.get();
+            Message reply = client.send(message, getId(client, mavenSession));
+            if (reply != null) {
+                if (message instanceof InitMessage) {
+                    configuration = Configuration.of(reply);
+                } else if (mavenSession != null) {
+                    client.state.update(reply);
+                }
             }
+            return reply;
         }
         return null;
     }
 
-    private synchronized String getId(MavenSession session) {
+    private byte[] getId(TcpClientConnection client, MavenSession session) {
         if (session == null) {
-            return Thread.currentThread().getName();
+            String name = Thread.currentThread().getName();
+            if (name != client.threadName) {
+                client.threadName = name;
+                client.threadId = Message.encodeSessionId(name);
+            }
+            return client.threadId;
+        }
+        if (client.session.get() != session) {
+            client.session = new WeakReference<>(session);
+            client.state = sessionIds.get(session);
+        }
+        return client.state.id;
+    }
+
+    @Override
+    public BooleanSupplier getCancelRequest(MavenSession mavenSession, MojoExecution mojoExecution) {
+        if (port <= 0 || mavenSession == null) {
+            return () -> false;
         }
-        return sessionMap.computeIfAbsent(session, x -> UUID.randomUUID().toString());
+        SessionState state = sessionIds.get(mavenSession);
+        String mojo =
+                mojoExecution == null ? null : ProgressMessage.mojoKey(mavenSession.getCurrentProject(), mojoExecution);
+        return () -> state.isCancelled(mojo);
     }
 
     /**
@@ -99,6 +202,30 @@ public class TcpBuildConnection implements BuildConnection {
         return new ServerConnection(new ServerSocket(0), consumer);
     }
 
+    /**
+     * Creates a new server that will receive messages from a remote endpoint and
+     * dispatch them to the consumer using a {@link MessageDispatcher}, so a slow
+     * consumer does not halt the maven process and messages of different sessions
+     * are processed in parallel while messages of the same session are still
+     * delivered in order.
+     *
+     * @param consumer the consumer of messages, see {@link #createServer(Function)}
+     * @param threads  the number of threads used to call the consumer
+     * @param capacity the maximum number of pending messages per session
+     * @param policy   the policy to use if the queue of a session is full
+     * @return a {@link ServerConnection} that can be used to shutdown the server
+     *         and get properties that needs to be passed to the maven process
+     * @throws IOException if no local socket can be opened
+     */
+    public static ServerConnection createServer(
+            Function<Message, Map<String, String>> consumer,
+            int threads,
+            int capacity,
+            MessageDispatcher.OverflowPolicy policy)
+            throws IOException {
+        return createServer(new MessageDispatcher(consumer, threads, capacity, policy));
+    }
+
     /**
      * Represents a server connection that must be created to communicate with the
      * maven process using the {@link TcpBuildConnection}
@@ -106,15 +233,19 @@ public class TcpBuildConnection implements BuildConnection {
     public static final class ServerConnection implements AutoCloseable {
 
         private ServerSocket socket;
+        private Function<Message, Map<String, String>> consumer;
         private ExecutorService executor = Executors.newCachedThreadPool();
         private List<TcpServerConnection> connections = new ArrayList<>();
+        private Set<String> cancelledSessions = ConcurrentHashMap.newKeySet();
+        private Map<String, Set<String>> cancelledMojos = new ConcurrentHashMap<>();
 
         ServerConnection(ServerSocket socket, Function<Message, Map<String, String>> consumer) {
             this.socket = socket;
+            this.consumer = consumer;
             executor.execute(() -> {
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
-                        TcpServerConnection connection = new TcpServerConnection(socket.accept(), consumer);
+                        TcpServerConnection connection = new TcpServerConnection(socket.accept(), this);
                         connections.add(connection);
                         executor.execute(connection);
                     } catch (IOException e) {
@@ -134,6 +265,59 @@ public class TcpBuildConnection implements BuildConnection {
                 socket.close();
             } catch (IOException e) {
             }
+            if (consumer instanceof MessageDispatcher) {
+                ((MessageDispatcher) consumer).close();
+            }
+        }
+
+        /**
+         * Requests to cancel the given session, the maven process is informed with
+         * the reply to the next message of the session and all mojos of the session,
+         * in a parallel build those of all projects, will report the cancellation
+         * through
+         * {@link org.codehaus.plexus.build.progress.Progress#isCancelRequested()}
+         *
+         * @param sessionId the id of the session, see {@link Message#getSessionId()}
+         */
+        public void cancel(String sessionId) {
+            cancelledSessions.add(sessionId);
+        }
+
+        /**
+         * Requests to cancel a mojo in the given session, see {@link #cancel(String)},
+         * the key names the project so only the execution of the mojo for that
+         * project is cancelled
+         *
+         * @param sessionId the id of the session, see {@link Message#getSessionId()}
+         * @param mojoKey   the key of the mojo, see
+         *                  {@link ProgressMessage#getMojoKey()}
+         */
+        public void cancel(String sessionId, String mojoKey) {
+            cancelledMojos
+                    .computeIfAbsent(sessionId, k -> ConcurrentHashMap.newKeySet())
+                    .add(mojoKey);
+        }
+
+        private Map<String, String> reply(Message message, Map<String, String> payload) {
+            String sessionId = message.getSessionId();
+            if (message instanceof SessionMessage && !((SessionMessage) message).isSessionStart()) {
+                cancelledSessions.remove(sessionId);
+                cancelledMojos.remove(sessionId);
+                return payload;
+            }
+            boolean cancelled = cancelledSessions.contains(sessionId);
+            Set<String> mojos = cancelledMojos.get(sessionId);
+            if (!cancelled && mojos == null) {
+                return payload;
+            }
+            Map<String, String> map = payload == null ? new HashMap<>() : new HashMap<>(payload);
+            if (cancelled) {
+                map.put(CANCEL, "true");
+            }
+            if (mojos != null) {
+                map.put(CANCEL_MOJOS, String.join(",", mojos));
+            }
+            return map;
         }
 
         /**
@@ -151,16 +335,18 @@ public class TcpBuildConnection implements BuildConnection {
     private static final class TcpServerConnection implements Runnable, Closeable {
 
         private Socket socket;
-        private Function<Message, Map<String, String>> consumer;
+        private ServerConnection server;
         private DataInputStream in;
         private DataOutputStream out;
+        private ChunkedOutputStream chunks;
         private AtomicBoolean closed = new AtomicBoolean();
 
-        public TcpServerConnection(Socket socket, Function<Message, Map<String, String>> consumer) throws IOException {
+        public TcpServerConnection(Socket socket, ServerConnection server) throws IOException {
             this.socket = socket;
-            this.consumer = consumer;
-            in = new DataInputStream(socket.getInputStream());
-            out = new DataOutputStream(socket.getOutputStream());
+            this.server = server;
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            chunks = new ChunkedOutputStream(out, ChunkedOutputStream.DEFAULT_CHUNK_SIZE);
         }
 
         @Override
@@ -168,20 +354,19 @@ public class TcpBuildConnection implements BuildConnection {
             try {
                 while (!closed.get() && !Thread.currentThread().isInterrupted()) {
                     try {
-                        int length = in.readInt();
-                        if (length == 0) {
+                        int header = in.readInt();
+                        if (header == 0) {
                             return;
                         }
-                        byte[] bytes = new byte[length];
-                        in.readFully(bytes);
-                        Message message = Message.decode(bytes);
-                        Map<String, String> payload = consumer.apply(message);
+                        Message message;
+                        try (ChunkedInputStream stream = new ChunkedInputStream(in, header)) {
+                            message = Message.read(stream);
+                        }
+                        Map<String, String> payload = server.reply(message, server.consumer.apply(message));
                         Message reply = Message.replyTo(message, payload);
-                        byte[] responseBytes = reply.serialize();
                         synchronized (out) {
-                            out.writeInt(responseBytes.length);
-                            out.write(responseBytes);
-                            out.flush();
+                            reply.writeTo(reply.getSessionId(), chunks);
+                            chunks.finish();
                         }
                     } catch (Exception e) {
                         return;
@@ -210,44 +395,87 @@ public class TcpBuildConnection implements BuildConnection {
         }
     }
 
-    private static final class TcpClientConnection {
+    private final class TcpClientConnection {
 
         private Socket socket;
-        private boolean closed;
         private DataInputStream in;
         private DataOutputStream out;
+        private ChunkedOutputStream chunks;
+        // the ids last used by this thread
+        private WeakReference<MavenSession> session = new WeakReference<>(null);
+        private SessionState state;
+        private String threadName;
+        private byte[] threadId;
 
-        public byte[] send(byte[] messageBytes) {
-            if (!closed) {
-                try {
-                    if (socket == null) {
-                        socket = new Socket("localhost", PORT);
-                        in = new DataInputStream(socket.getInputStream());
-                        out = new DataOutputStream(socket.getOutputStream());
-                    }
-                    out.writeInt(messageBytes.length);
-                    out.write(messageBytes);
-                    out.flush();
-                    int length = in.readInt();
-                    if (length == 0) {
-                        socket.close();
-                        closed = true;
-                    } else {
-                        byte[] bytes = new byte[length];
-                        in.readFully(bytes);
-                        return bytes;
+        public Message send(Message message, byte[] sessionId) {
+            if (!breaker.allow()) {
+                metrics.increment(Counter.MESSAGES_FAILED, 1);
+                return null;
+            }
+            long start = System.nanoTime();
+            try {
+                if (socket == null) {
+                    Socket s = new Socket();
+                    try {
+                        s.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), connectTimeout);
+                        s.setSoTimeout(replyTimeout);
+                    } catch (IOException e) {
+                        s.close();
+                        throw e;
                     }
+                    socket = s;
+                    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    chunks = new ChunkedOutputStream(out, ChunkedOutputStream.DEFAULT_CHUNK_SIZE);
+                }
+                long sent;
+                watchdog.watch(socket);
+                try {
+                    message.writeTo(sessionId, chunks);
+                    sent = chunks.finish();
+                } finally {
+                    watchdog.done(socket);
+                }
+                int header = in.readInt();
+                if (header == 0) {
+                    // the endpoint has closed the connection
+                    disconnect();
+                    breaker.failure();
+                    metrics.increment(Counter.MESSAGES_FAILED, 1);
+                    return null;
+                }
+                Message reply;
+                long received;
+                try (ChunkedInputStream stream = new ChunkedInputStream(in, header)) {
+                    reply = Message.read(stream);
+                    received = stream.size();
+                }
+                breaker.success();
+                long roundTrip = System.nanoTime() - start;
+                metrics.record(Timer.ROUND_TRIP, roundTrip);
+                metrics.increment(Counter.MESSAGES_SENT, 1);
+                metrics.increment(Counter.BYTES_SENT, sent);
+                metrics.increment(Counter.BYTES_RECEIVED, received);
+                BuildEvents.messageSent(message.getClass().getSimpleName(), sent, received, roundTrip);
+                return reply;
+            } catch (IOException e) {
+                // includes a read timeout or a write closed by the watchdog, the connection is
+                // in an undefined state then and a new one is used for the next message
+                disconnect();
+                breaker.failure();
+                metrics.increment(Counter.MESSAGES_FAILED, 1);
+                return null;
+            }
+        }
+
+        private void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
                 } catch (IOException e) {
-                    closed = true;
-                    if (socket != null) {
-                        try {
-                            socket.close();
-                        } catch (IOException e1) {
-                        }
-                    }
                 }
+                socket = null;
             }
-            return new byte[0];
         }
     }
 }
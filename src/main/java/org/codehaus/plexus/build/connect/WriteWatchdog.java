@@ -0,0 +1,97 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Socket timeouts only apply to reads, a write blocks as long as the other
+ * endpoint does not read and the send buffer is full. The watchdog closes the
+ * socket of a write that does not complete in time, so the blocked writer fails
+ * with an {@link IOException}. Writes are checked by a single daemon thread
+ * every tenth of the timeout, registering a write only updates a map.
+ */
+final class WriteWatchdog implements Runnable {
+
+    private final long timeout;
+    private final long interval;
+    private final Map<Socket, Long> deadlines = new ConcurrentHashMap<>();
+    private volatile Thread thread;
+
+    /**
+     * @param timeout the time in milliseconds a write may take
+     */
+    WriteWatchdog(long timeout) {
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeout));
+        this.interval = Math.max(10, timeout / 10);
+    }
+
+    /**
+     * Must be called before writing to the socket, once the write is done
+     * {@link #done(Socket)} must be called
+     *
+     * @param socket the socket that is written to
+     */
+    void watch(Socket socket) {
+        deadlines.put(socket, System.nanoTime() + timeout);
+        start();
+    }
+
+    /**
+     * @param socket the socket that is no longer written to
+     */
+    void done(Socket socket) {
+        deadlines.remove(socket);
+    }
+
+    private void start() {
+        if (thread == null) {
+            synchronized (this) {
+                if (thread == null) {
+                    Thread t = new Thread(this, "plexus-build-ipc-watchdog");
+                    t.setDaemon(true);
+                    t.start();
+                    thread = t;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = System.nanoTime();
+            for (Iterator<Map.Entry<Socket, Long>> it = deadlines.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Socket, Long> entry = it.next();
+                if (now - entry.getValue() > 0) {
+                    it.remove();
+                    try {
+                        entry.getKey().close();
+                    } catch (IOException e) {
+                        // the writer fails anyways
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect.messages;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message that carries the markers (errors, warnings and infos) of one file.
+ * All markers are encoded into a single compact value where each marker is
+ * written as <code>severity,line,column,length:text</code>, so the markers of a
+ * file are transferred as one frame without a key per marker.
+ */
+public class MarkerMessage extends Message {
+
+    private static final String PATH_KEY = "path";
+    private static final String REPLACE_KEY = "replace";
+    private static final String MARKERS_KEY = "markers";
+
+    private List<Marker> markers;
+
+    /**
+     * Creates a new message for the markers of a file
+     *
+     * @param path    the file the markers belong to
+     * @param markers the markers
+     * @param replace <code>true</code> if the markers replace all existing markers
+     *                of the file, <code>false</code> if they are added
+     */
+    public MarkerMessage(Path path, Collection<Marker> markers, boolean replace) {
+        super(buildMap(path, markers, replace));
+        this.markers = Collections.unmodifiableList(new ArrayList<>(markers));
+    }
+
+    MarkerMessage(String sessionId, long threadId, Map<String, String> payload) {
+        super(sessionId, threadId, payload);
+    }
+
+    /**
+     * @return the file the markers belong to
+     */
+    public Path getPath() {
+        return new File(getProperty(PATH_KEY)).toPath();
+    }
+
+    /**
+     * @return <code>true</code> if the markers replace all existing markers of the
+     *         file (an empty list therefore removes all markers),
+     *         <code>false</code> if they are added to the existing markers
+     */
+    public boolean isReplace() {
+        return getBooleanProperty(REPLACE_KEY);
+    }
+
+    /**
+     * @return the markers of this message
+     */
+    public synchronized List<Marker> getMarkers() {
+        if (markers == null) {
+            markers = Collections.unmodifiableList(decode(getProperty(MARKERS_KEY, "")));
+        }
+        return markers;
+    }
+
+    private static Map<String, String> buildMap(Path path, Collection<Marker> markers, boolean replace) {
+        Map<String, String> map = new LinkedHashMap<>(4);
+        map.put(PATH_KEY, path.toFile().getAbsolutePath());
+        map.put(REPLACE_KEY, Boolean.toString(replace));
+        map.put(MARKERS_KEY, encode(markers));
+        return map;
+    }
+
+    private static String encode(Collection<Marker> markers) {
+        StringBuilder sb = new StringBuilder();
+        for (Marker marker : markers) {
+            String text = marker.getMessage() == null ? "" : marker.getMessage();
+            sb.append(marker.getSeverity())
+                    .append(',')
+                    .append(marker.getLine())
+                    .append(',')
+                    .append(marker.getColumn())
+                    .append(',')
+                    .append(text.length())
+                    .append(':')
+                    .append(text);
+        }
+        return sb.toString();
+    }
+
+    private static List<Marker> decode(String value) {
+        List<Marker> list = new ArrayList<>();
+        int[] position = {0};
+        while (position[0] < value.length()) {
+            int severity = readInt(value, position, ',');
+            int line = readInt(value, position, ',');
+            int column = readInt(value, position, ',');
+            int length = readInt(value, position, ':');
+            String text = value.substring(position[0], position[0] + length);
+            position[0] += length;
+            list.add(new Marker(severity, line, column, text));
+        }
+        return list;
+    }
+
+    private static int readInt(String value, int[] position, char delimiter) {
+        int start = position[0];
+        int end = value.indexOf(delimiter, start);
+        if (end < 0) {
+            throw new IllegalArgumentException("malformed markers at index " + start);
+        }
+        position[0] = end + 1;
+        return Integer.parseInt(value.substring(start, end));
+    }
+
+    /**
+     * A single marker of a file
+     */
+    public static final class Marker {
+
+        private final int severity;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        /**
+         * @param severity the severity, one of
+         *                 {@link org.codehaus.plexus.build.BuildContext#SEVERITY_ERROR},
+         *                 {@link org.codehaus.plexus.build.BuildContext#SEVERITY_WARNING}
+         *                 or <code>0</code> for an info
+         * @param line     the line (1-based, <code>0</code> if unknown)
+         * @param column   the column (1-based, <code>0</code> if unknown)
+         * @param message  the text of the marker
+         */
+        public Marker(int severity, int line, int column, String message) {
+            this.severity = severity;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        /**
+         * @return the severity as defined by
+         *         {@link org.codehaus.plexus.build.BuildContext}
+         */
+        public int getSeverity() {
+            return severity;
+        }
+
+        /**
+         * @return the line (1-based, <code>0</code> if unknown)
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * @return the column (1-based, <code>0</code> if unknown)
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * @return the text of the marker
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + severity + "][" + line + ":" + column + "] " + message;
+        }
+    }
+}
@@ -17,6 +17,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -137,21 +139,65 @@ public class Message {
      */
     public byte[] serialize(String sessionId) {
         ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        DataOutputStream out = new DataOutputStream(stream);
         try {
-            writeString(sessionId, out);
-            out.writeLong(threadId);
-            writeString(getClass().getSimpleName(), out);
-            if (properties.isEmpty()) {
-                out.writeInt(0);
-            } else {
-                Set<Entry<String, String>> set = properties.entrySet();
-                out.writeInt(set.size());
-                for (Entry<String, String> entry : set) {
-                    writeString(entry.getKey(), out);
-                    writeString(entry.getValue(), out);
-                }
+            writeTo(sessionId, stream);
+        } catch (IOException e) {
+            // should never happen, but if it happens something is wrong!
+            throw new RuntimeException("Internal Error: Write data failed", e);
+        }
+        return stream.toByteArray();
+    }
+
+    /**
+     * Writes this message using the session id to the given stream, this allows to
+     * stream large messages without creating the bytes of the whole message first.
+     *
+     * @param sessionId the session id to use
+     * @param stream    the stream to write to
+     * @throws IOException if writing to the stream failed
+     */
+    public void writeTo(String sessionId, OutputStream stream) throws IOException {
+        writeTo(encodeSessionId(sessionId), stream);
+    }
+
+    /**
+     * Writes this message using an already encoded session id to the given
+     * stream, this allows to encode the id of a session once and reuse it for all
+     * messages of that session.
+     *
+     * @param encodedSessionId the session id as returned by
+     *                         {@link #encodeSessionId(String)}
+     * @param stream           the stream to write to
+     * @throws IOException if writing to the stream failed
+     */
+    public void writeTo(byte[] encodedSessionId, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.write(encodedSessionId);
+        out.writeLong(threadId);
+        writeString(getClass().getSimpleName(), out);
+        if (properties.isEmpty()) {
+            out.writeInt(0);
+        } else {
+            Set<Entry<String, String>> set = properties.entrySet();
+            out.writeInt(set.size());
+            for (Entry<String, String> entry : set) {
+                writeString(entry.getKey(), out);
+                writeString(entry.getValue(), out);
             }
+        }
+        out.flush();
+    }
+
+    /**
+     * Encodes a session id the way it is written in the header of a message
+     *
+     * @param sessionId the session id to encode
+     * @return the encoded bytes
+     */
+    public static byte[] encodeSessionId(String sessionId) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try {
+            writeString(sessionId, new DataOutputStream(stream));
         } catch (IOException e) {
             // should never happen, but if it happens something is wrong!
             throw new RuntimeException("Internal Error: Write data failed", e);
@@ -181,36 +227,8 @@ public class Message {
      * @return the message or <code>null</code> if decoding failed
      */
     public static Message decode(byte[] bytes) {
-        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
-        DataInputStream in = new DataInputStream(stream);
         try {
-            String sessionId = readString(in);
-            long threadId = in.readLong();
-            String messageType = readString(in);
-            int size = in.readInt();
-            Map<String, String> payload = new LinkedHashMap<>(size);
-            for (int i = 0; i < size; i++) {
-                payload.put(readString(in), readString(in));
-            }
-            if ("SessionMessage".equals(messageType)) {
-                return new SessionMessage(sessionId, threadId, payload);
-            }
-            if ("ProjectsMessage".equals(messageType)) {
-                return new ProjectsMessage(sessionId, threadId, payload);
-            }
-            if ("RefreshMessage".equals(messageType)) {
-                return new RefreshMessage(sessionId, threadId, payload);
-            }
-            if ("InitMessage".equals(messageType)) {
-                return new InitMessage(sessionId, threadId, payload);
-            }
-            if ("ProjectMessage".equals(messageType)) {
-                return new ProjectMessage(sessionId, threadId, payload);
-            }
-            if ("MojoMessage".equals(messageType)) {
-                return new MojoMessage(sessionId, threadId, payload);
-            }
-            return new Message(sessionId, threadId, payload);
+            return read(new ByteArrayInputStream(bytes));
         } catch (IOException e) {
             // should never happen, but if it happens something is wrong!
             System.err.println("Internal Error: Message decoding failed: " + e);
@@ -218,6 +236,54 @@ public class Message {
         return null;
     }
 
+    /**
+     * Reads a message from the given stream, the stream is consumed up to the end
+     * of the message
+     *
+     * @param stream the stream to read from
+     * @return the message
+     * @throws IOException if reading from the stream failed
+     */
+    public static Message read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        String sessionId = readString(in);
+        long threadId = in.readLong();
+        String messageType = readString(in);
+        int size = in.readInt();
+        Map<String, String> payload = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            payload.put(readString(in), readString(in));
+        }
+        if ("SessionMessage".equals(messageType)) {
+            return new SessionMessage(sessionId, threadId, payload);
+        }
+        if ("ProjectsMessage".equals(messageType)) {
+            return new ProjectsMessage(sessionId, threadId, payload);
+        }
+        if ("RefreshMessage".equals(messageType)) {
+            return new RefreshMessage(sessionId, threadId, payload);
+        }
+        if ("InitMessage".equals(messageType)) {
+            return new InitMessage(sessionId, threadId, payload);
+        }
+        if ("ProjectMessage".equals(messageType)) {
+            return new ProjectMessage(sessionId, threadId, payload);
+        }
+        if ("MojoMessage".equals(messageType)) {
+            return new MojoMessage(sessionId, threadId, payload);
+        }
+        if ("ProgressMessage".equals(messageType)) {
+            return new ProgressMessage(sessionId, threadId, payload);
+        }
+        if ("TimingsMessage".equals(messageType)) {
+            return new TimingsMessage(sessionId, threadId, payload);
+        }
+        if ("MarkerMessage".equals(messageType)) {
+            return new MarkerMessage(sessionId, threadId, payload);
+        }
+        return new Message(sessionId, threadId, payload);
+    }
+
     private static String readString(DataInputStream in) throws IOException {
         int length = in.readInt();
         if (length < 0) {
@@ -0,0 +1,236 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect.messages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Send to inform about the progress of a mojo execution. Progress messages are
+ * rate limited, so not every reported amount of work results in a message, but
+ * the last state of a task is always send. The message names the project the
+ * mojo is executed for, so progress of the same mojo executed for different
+ * projects in parallel can be told apart.
+ */
+public class ProgressMessage extends Message {
+
+    private static final String PROJECT_GROUP_ID = "projectGroupId";
+    private static final String PROJECT_ARTIFACT_ID = "projectArtifactId";
+    private static final String GROUP_ID = "groupId";
+    private static final String ARTIFACT_ID = "artifactId";
+    private static final String EXECUTION_ID = "executionId";
+    private static final String GOAL = "goal";
+    private static final String TASK = "task";
+    private static final String TOTAL = "total";
+    private static final String WORKED = "worked";
+    private static final String DONE = "done";
+    private static final String REMAINING = "remaining";
+
+    ProgressMessage(String sessionId, long threadId, Map<String, String> payload) {
+        super(sessionId, threadId, payload);
+    }
+
+    /**
+     * Creates a new progress message
+     *
+     * @param project       the project the mojo is executed for, might be
+     *                      <code>null</code>
+     * @param mojoExecution the execution reporting the progress
+     * @param task          the current task, might be <code>null</code>
+     * @param total         the total amount of work of the task, or
+     *                      <code>-1</code> if unknown
+     * @param worked        the amount of work already done
+     * @param done          <code>true</code> if the mojo execution has finished
+     */
+    public ProgressMessage(
+            MavenProject project, MojoExecution mojoExecution, String task, int total, int worked, boolean done) {
+        this(project, mojoExecution, task, total, worked, done, -1);
+    }
+
+    /**
+     * Creates a new progress message
+     *
+     * @param project       the project the mojo is executed for, might be
+     *                      <code>null</code>
+     * @param mojoExecution the execution reporting the progress
+     * @param task          the current task, might be <code>null</code>
+     * @param total         the total amount of work of the task, or
+     *                      <code>-1</code> if unknown
+     * @param worked        the amount of work already done
+     * @param done          <code>true</code> if the mojo execution has finished
+     * @param remaining     the estimated remaining time in milliseconds, or
+     *                      <code>-1</code> if unknown
+     */
+    public ProgressMessage(
+            MavenProject project,
+            MojoExecution mojoExecution,
+            String task,
+            int total,
+            int worked,
+            boolean done,
+            long remaining) {
+        super(toMap(project, mojoExecution, task, total, worked, done, remaining));
+    }
+
+    /**
+     * @return the group id of the project the mojo is executed for
+     */
+    public String getProjectGroupId() {
+        return getProperty(PROJECT_GROUP_ID);
+    }
+
+    /**
+     * @return the artifact id of the project the mojo is executed for
+     */
+    public String getProjectArtifactId() {
+        return getProperty(PROJECT_ARTIFACT_ID);
+    }
+
+    /**
+     * @return the group id of the plugin
+     */
+    public String getGroupId() {
+        return getProperty(GROUP_ID);
+    }
+
+    /**
+     * @return the artifact id of the plugin
+     */
+    public String getArtifactId() {
+        return getProperty(ARTIFACT_ID);
+    }
+
+    /**
+     * @return the execution id
+     */
+    public String getExecutionId() {
+        return getProperty(EXECUTION_ID);
+    }
+
+    /**
+     * @return the goal
+     */
+    public String getGoal() {
+        return getProperty(GOAL);
+    }
+
+    /**
+     * @return the current task or <code>null</code> if none was started
+     */
+    public String getTask() {
+        return getProperty(TASK);
+    }
+
+    /**
+     * @return the total amount of work of the task, or <code>-1</code> if unknown
+     */
+    public int getTotal() {
+        return Integer.parseInt(getProperty(TOTAL, "-1"));
+    }
+
+    /**
+     * @return the amount of work already done
+     */
+    public int getWorked() {
+        return Integer.parseInt(getProperty(WORKED, "0"));
+    }
+
+    /**
+     * @return <code>true</code> if the mojo execution has finished
+     */
+    public boolean isDone() {
+        return getBooleanProperty(DONE);
+    }
+
+    /**
+     * @return the estimated remaining time of the task (or the mojo execution if
+     *         the amount of work is unknown) in milliseconds, or <code>-1</code>
+     *         if no estimate is available
+     */
+    public long getRemaining() {
+        return Long.parseLong(getProperty(REMAINING, "-1"));
+    }
+
+    /**
+     * @return the key of the mojo that can be used to request its cancellation,
+     *         see
+     *         {@link org.codehaus.plexus.build.connect.TcpBuildConnection.ServerConnection#cancel(String, String)}
+     */
+    public String getMojoKey() {
+        return mojoKey(getProjectGroupId(), getProjectArtifactId(), getArtifactId(), getGoal(), getExecutionId());
+    }
+
+    /**
+     * Computes the key that identifies a mojo execution within a session
+     *
+     * @param project       the project the mojo is executed for, might be
+     *                      <code>null</code>
+     * @param mojoExecution the execution
+     * @return the key of the mojo
+     */
+    public static String mojoKey(MavenProject project, MojoExecution mojoExecution) {
+        return mojoKey(
+                project == null ? null : project.getGroupId(),
+                project == null ? null : project.getArtifactId(),
+                mojoExecution.getArtifactId(),
+                mojoExecution.getGoal(),
+                mojoExecution.getExecutionId());
+    }
+
+    /**
+     * Computes the key that identifies a mojo execution within a session
+     *
+     * @param projectGroupId    the group id of the project
+     * @param projectArtifactId the artifact id of the project
+     * @param artifactId        the artifact id of the plugin
+     * @param goal              the goal
+     * @param executionId       the execution id
+     * @return the key of the mojo
+     */
+    public static String mojoKey(
+            String projectGroupId, String projectArtifactId, String artifactId, String goal, String executionId) {
+        return projectGroupId + ':' + projectArtifactId + '/' + artifactId + ':' + goal + '@' + executionId;
+    }
+
+    private static Map<String, String> toMap(
+            MavenProject project,
+            MojoExecution mojoExecution,
+            String task,
+            int total,
+            int worked,
+            boolean done,
+            long remaining) {
+        Map<String, String> map = new HashMap<>();
+        if (project != null) {
+            map.put(PROJECT_GROUP_ID, project.getGroupId());
+            map.put(PROJECT_ARTIFACT_ID, project.getArtifactId());
+        }
+        map.put(GROUP_ID, mojoExecution.getGroupId());
+        map.put(ARTIFACT_ID, mojoExecution.getArtifactId());
+        map.put(EXECUTION_ID, mojoExecution.getExecutionId());
+        map.put(GOAL, mojoExecution.getGoal());
+        if (task != null) {
+            map.put(TASK, task);
+        }
+        map.put(TOTAL, Integer.toString(total));
+        map.put(WORKED, Integer.toString(worked));
+        map.put(DONE, Boolean.toString(done));
+        if (remaining >= 0) {
+            map.put(REMAINING, Long.toString(remaining));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.connect.messages;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Send at the end of a session to summarize where the time of the build was
+ * spent, all times are in milliseconds. The critical path is the chain of
+ * projects along the dependency graph that took the longest time in sum, the
+ * build can not finish faster than this even with an unlimited number of
+ * threads.
+ */
+public class TimingsMessage extends Message {
+
+    private static final String WALL_TIME = "wallTime";
+    private static final String THREADS = "threads";
+    private static final String CRITICAL_PATH = "criticalPath";
+    private static final String PROJECT_PREFIX = "project.";
+    private static final String MOJO_PREFIX = "mojo.";
+
+    TimingsMessage(String sessionId, long threadId, Map<String, String> payload) {
+        super(sessionId, threadId, payload);
+    }
+
+    /**
+     * Creates a new timings message
+     *
+     * @param wallTime     the time from the start to the end of the session
+     * @param threads      the number of threads used to build the projects
+     * @param criticalPath the ids of the projects on the critical path in the
+     *                     order they where build
+     * @param projectTimes the time spent for each project by its id
+     * @param mojoTimes    the time spent for each mojo execution by its id
+     */
+    public TimingsMessage(
+            long wallTime,
+            int threads,
+            List<String> criticalPath,
+            Map<String, Long> projectTimes,
+            Map<String, Long> mojoTimes) {
+        super(toMap(wallTime, threads, criticalPath, projectTimes, mojoTimes));
+    }
+
+    /**
+     * @return the time from the start to the end of the session
+     */
+    public long getWallTime() {
+        return Long.parseLong(getProperty(WALL_TIME, "0"));
+    }
+
+    /**
+     * @return the number of threads used to build the projects
+     */
+    public int getThreads() {
+        return Integer.parseInt(getProperty(THREADS, "1"));
+    }
+
+    /**
+     * @return the ids of the projects on the critical path in the order they where
+     *         build
+     */
+    public List<String> getCriticalPath() {
+        String value = getProperty(CRITICAL_PATH, "");
+        if (value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(value.split(","));
+    }
+
+    /**
+     * @return the sum of the times of the projects on the critical path
+     */
+    public long getCriticalPathTime() {
+        Map<String, Long> times = getProjectTimes();
+        return getCriticalPath().stream()
+                .mapToLong(id -> times.getOrDefault(id, 0L))
+                .sum();
+    }
+
+    /**
+     * @return the time spent for each project by its id
+     */
+    public Map<String, Long> getProjectTimes() {
+        return getTimes(PROJECT_PREFIX);
+    }
+
+    /**
+     * @return the time spent for each mojo execution by its id
+     */
+    public Map<String, Long> getMojoTimes() {
+        return getTimes(MOJO_PREFIX);
+    }
+
+    /**
+     * @return the fraction of the available thread time that was used to build
+     *         projects, a low value means the build is limited by its critical
+     *         path and not by the number of threads
+     */
+    public double getUtilization() {
+        long available = getWallTime() * getThreads();
+        if (available <= 0) {
+            return 0;
+        }
+        long work =
+                getProjectTimes().values().stream().mapToLong(Long::longValue).sum();
+        return (double) work / available;
+    }
+
+    private Map<String, Long> getTimes(String prefix) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        keys().filter(key -> key.startsWith(prefix)).forEach(key -> {
+            map.put(key.substring(prefix.length()), Long.parseLong(getProperty(key)));
+        });
+        return map;
+    }
+
+    private static Map<String, String> toMap(
+            long wallTime,
+            int threads,
+            List<String> criticalPath,
+            Map<String, Long> projectTimes,
+            Map<String, Long> mojoTimes) {
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put(WALL_TIME, Long.toString(wallTime));
+        map.put(THREADS, Integer.toString(threads));
+        map.put(CRITICAL_PATH, String.join(",", criticalPath));
+        for (Entry<String, Long> entry : projectTimes.entrySet()) {
+            map.put(PROJECT_PREFIX + entry.getKey(), Long.toString(entry.getValue()));
+        }
+        for (Entry<String, Long> entry : mojoTimes.entrySet()) {
+            map.put(MOJO_PREFIX + entry.getKey(), Long.toString(entry.getValue()));
+        }
+        return map;
+    }
+}
@@ -12,11 +12,31 @@ package org.codehaus.plexus.build.messages;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.execution.MojoExecutionListener;
+import org.apache.maven.plugin.LegacySupport;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.build.BuildContext;
+import org.codehaus.plexus.build.DefaultBuildContext;
+import org.codehaus.plexus.build.metrics.BuildEvents;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,35 +47,167 @@ import org.slf4j.LoggerFactory;
  * message handling infrastructure. It logs messages and calls the legacy BuildContext
  * message API.
  * </p>
+ * <p>
+ * Messages are published to all {@link MessageSink} components (by default
+ * only {@link LoggingMessageSink}), each sink has its own bounded lock-free
+ * queue and consumes it on its own thread in batches of up to
+ * <code>plexus.build.messages.batchSize</code> (default 1000) messages, so a
+ * slow sink does not slow down the mojo. When a mojo execution ends it waits
+ * (at most <code>plexus.build.messages.flushTimeout</code>, default 60000
+ * milliseconds) until all sinks have handled the messages created so far. As
+ * this requires the instance to be called as a {@link MojoExecutionListener},
+ * all sinks are additionally flushed when the JVM exits (waiting at most
+ * <code>plexus.build.messages.shutdownTimeout</code>, default 5000
+ * milliseconds), so the last messages are not lost if the instance is created
+ * directly or the listener is not called. The threads of the sinks are stopped
+ * when the component is disposed. As sinks are called from their own thread,
+ * the {@link LoggingMessageSink} logs messages from that thread as well, so in
+ * a parallel build they are not attributed to the log of their project and may
+ * interleave with the output of other projects.
+ * </p>
+ * <p>
+ * If a message of the requested type would neither be logged nor have any
+ * effect on the {@link BuildContext} (and is not stored, see below) a shared
+ * builder is returned that discards the message without allocating anything,
+ * the text of a message is only formatted if it is actually logged.
+ * </p>
+ * <p>
+ * To protect the log and the IDE from runaway producers at most
+ * <code>plexus.build.messages.maxPerFile</code> (default 1000) messages per
+ * file and type and <code>plexus.build.messages.maxPerType</code> (default
+ * 10000) messages per type are reported for a mojo execution, for messages
+ * created outside of a mojo execution the limits apply per
+ * <code>plexus.build.messages.window</code> (default 1000) milliseconds.
+ * Further messages are only counted and reported as one summary message per
+ * file and type at the end of the execution or window.
+ * </p>
+ * <p>
+ * The messages of a mojo execution are kept in an index by path, so
+ * {@link #clear(Path)} and {@link #clearAll()} only affect the messages of the
+ * current execution and are cheap. When the execution ends its messages are
+ * compared with the previous execution of the same mojo for the same project
+ * and only paths whose messages have changed are forwarded to the
+ * {@link BuildContext}. Messages created by other threads that know the
+ * session of the mojo (e.g. threads started by the mojo to process files in
+ * parallel) belong to the execution of the current project of that session.
+ * </p>
+ * <p>
+ * If the property <code>plexus.build.messages.store</code> is <code>true</code>
+ * the messages of each mojo execution are additionally stored in
+ * <code>target/plexus-build/messages</code> of the project and restored by the
+ * next build. Messages of files the mojo did not process again (e.g. because an
+ * incremental mojo skipped unchanged files) are then kept and reported again,
+ * so skipping a file does not hide its existing problems. A file counts as
+ * processed if the mojo reported or cleared messages for it, or if the
+ * {@link DefaultBuildContext} reported it as changed through
+ * <code>hasDelta</code> or a scanner or it was written through
+ * <code>newFileOutputStream</code>. Mojos that decide on their own which files
+ * to process must {@link #clear(Path)} each file they process, otherwise the
+ * messages of a file that no longer has any problems are restored.
+ * </p>
  */
 @Named("default")
 @Singleton
-public class DefaultMessages implements Messages {
+public class DefaultMessages implements Messages, MojoExecutionListener, Disposable {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultMessages.class);
 
-    private final BuildContext buildContext;
+    private static final String STORE = "plexus.build.messages.store";
+
+    private final Provider<BuildContext> buildContext;
+
+    private final long flushTimeout = Long.getLong("plexus.build.messages.flushTimeout", 60000);
+
+    private final int maxPerFile = Integer.getInteger("plexus.build.messages.maxPerFile", 1000);
+
+    private final int maxPerType = Integer.getInteger("plexus.build.messages.maxPerType", 10000);
+
+    private final long window = TimeUnit.MILLISECONDS.toNanos(Long.getLong("plexus.build.messages.window", 1000));
+
+    private final ThreadLocal<MessageBuffer> buffers = ThreadLocal.withInitial(MessageBuffer::new);
 
     /**
-     * Creates a new DefaultMessages instance.
+     * The mojo executions in progress by project, so other threads of a mojo find
+     * its execution
+     */
+    private final Map<MavenProject, MessageBuffer> executions = new ConcurrentHashMap<>();
+
+    /**
+     * Limits the messages created outside of the mojo thread
+     */
+    private final FloodControl floodControl = new FloodControl(maxPerFile, maxPerType);
+
+    private final MessageIndex index = new MessageIndex();
+
+    private final SinkDispatcher sinks;
+
+    private final LegacySupport legacySupport;
+
+    /**
+     * Creates a new DefaultMessages instance that logs messages.
      *
      * @param buildContext the BuildContext to which messages will be delegated
      */
-    @Inject
     public DefaultMessages(BuildContext buildContext) {
+        this(() -> buildContext, Collections.singletonList(new LoggingMessageSink()));
+    }
+
+    /**
+     * Creates a new DefaultMessages instance.
+     *
+     * @param buildContext the BuildContext to which messages will be delegated, it
+     *                     is only resolved once a message is created as this
+     *                     component is also looked up as a listener for mojos
+     *                     that do not use it at all
+     * @param sinks        the sinks to publish messages to
+     */
+    public DefaultMessages(Provider<BuildContext> buildContext, List<MessageSink> sinks) {
+        this(buildContext, sinks, null);
+    }
+
+    /**
+     * Creates a new DefaultMessages instance.
+     *
+     * @param buildContext  the BuildContext to which messages will be delegated,
+     *                      it is only resolved once a message is created as this
+     *                      component is also looked up as a listener for mojos
+     *                      that do not use it at all
+     * @param sinks         the sinks to publish messages to
+     * @param legacySupport legacy support to get the session of the current
+     *                      thread, might be <code>null</code>
+     */
+    @Inject
+    public DefaultMessages(
+            Provider<BuildContext> buildContext, List<MessageSink> sinks, LegacySupport legacySupport) {
         this.buildContext = buildContext;
+        this.legacySupport = legacySupport;
+        this.sinks =
+                new SinkDispatcher(new ArrayList<>(sinks), Integer.getInteger("plexus.build.messages.batchSize", 1000));
+    }
+
+    @Override
+    public void dispose() {
+        sinks.close(flushTimeout);
     }
 
     @Override
     public void clearAll() {
-        // This is a no-op in the default implementation
-        // Custom implementations may provide actual clearing functionality
+        MessageIndex.Execution execution = getBuffer().execution;
+        if (execution != null) {
+            execution.clearAll();
+        }
+        // Without an execution this is a no-op as there is nothing to clear
     }
 
     @Override
     public void clear(Path path) {
+        MessageIndex.Execution execution = getBuffer().execution;
         if (path != null) {
-            buildContext.removeMessages(path.toFile());
+            if (execution != null) {
+                execution.clear(path);
+            } else {
+                buildContext.get().removeMessages(path.toFile());
+            }
         }
     }
 
@@ -76,40 +228,285 @@ public class DefaultMessages implements Messages {
 
     @Override
     public MessageBuilder build(MessageType type, Path path) {
+        if (!isRequired(type)) {
+            return DiscardingMessageBuilder.INSTANCE;
+        }
         return new MessageBuilder(type, path, this::handleMessage);
     }
 
     /**
-     * Handles a message by logging it and delegating to the BuildContext.
+     * Checks if a message of the given type has any effect
+     *
+     * @param type the type of the message
+     * @return <code>false</code> if the message can be discarded
+     */
+    private boolean isRequired(MessageType type) {
+        if (sinks.isEnabled(type) || BuildEvents.isEnabled()) {
+            return true;
+        }
+        BuildContext context = buildContext.get();
+        if (!(context instanceof DefaultBuildContext)
+                || ((DefaultBuildContext) context).isMessageEnabled(mapTypeToSeverity(type))) {
+            return true;
+        }
+        return getBuffer().store != null;
+    }
+
+    /**
+     * @return the state of the mojo execution of the current thread, or of the
+     *         execution for the current project if the thread does not execute
+     *         a mojo itself but was e.g. started by one
+     */
+    private MessageBuffer getBuffer() {
+        MessageBuffer buffer = buffers.get();
+        if (buffer.execution != null || executions.isEmpty()) {
+            return buffer;
+        }
+        MavenSession session = legacySupport == null ? null : legacySupport.getSession();
+        MavenProject project = session == null ? null : session.getCurrentProject();
+        MessageBuffer execution = project == null ? null : executions.get(project);
+        return execution == null ? buffer : execution;
+    }
+
+    @Override
+    public void beforeMojoExecution(MojoExecutionEvent event) {
+        MessageBuffer buffer = buffers.get();
+        buffer.floodControl = new FloodControl(maxPerFile, maxPerType);
+        if (event == null) {
+            buffer.execution = index.begin("");
+            return;
+        }
+        String owner = owner(event.getProject(), event.getExecution());
+        buffer.store = getStoreFile(event.getSession(), event.getProject(), event.getExecution());
+        if (buffer.store != null) {
+            index.restore(owner, MessageStore.load(buffer.store));
+            BuildContext context = buildContext.get();
+            if (context instanceof DefaultBuildContext) {
+                ((DefaultBuildContext) context).recordProcessedFiles();
+            }
+        }
+        buffer.execution = index.begin(owner);
+        if (event.getProject() != null) {
+            executions.put(event.getProject(), buffer);
+        }
+    }
+
+    @Override
+    public void afterMojoExecutionSuccess(MojoExecutionEvent event) {
+        commit(event);
+    }
+
+    @Override
+    public void afterExecutionFailure(MojoExecutionEvent event) {
+        commit(event);
+    }
+
+    private void commit(MojoExecutionEvent event) {
+        MessageBuffer buffer = buffers.get();
+        if (event != null && event.getProject() != null) {
+            executions.remove(event.getProject(), buffer);
+        }
+        MessageIndex.Execution execution = buffer.execution;
+        FloodControl.Summary summary = buffer.floodControl == null ? null : buffer.floodControl.next();
+        if (summary != null) {
+            for (Message message : summary.getMessages()) {
+                dispatch(message);
+            }
+        }
+        Path store = buffer.store;
+        buffers.remove();
+        // the other threads of the mojo are most likely done now as well
+        FloodControl.Summary shared = floodControl.next();
+        for (Message message : shared.getMessages()) {
+            dispatch(message);
+        }
+        try {
+            if (execution == null) {
+                return;
+            }
+            if (store == null) {
+                execution.commit(this::changed);
+                return;
+            }
+            commit(execution, store);
+        } finally {
+            sinks.flush(flushTimeout);
+            if (summary != null) {
+                warnSuppressed(summary);
+            }
+            warnSuppressed(shared);
+        }
+    }
+
+    private void commit(MessageIndex.Execution execution, Path store) {
+        BuildContext context = buildContext.get();
+        Predicate<Path> processed =
+                context instanceof DefaultBuildContext ? ((DefaultBuildContext) context)::isProcessed : path -> false;
+        Map<Path, Set<Message>> messages = execution.commit(new MessageIndex.Listener() {
+
+            @Override
+            public void changed(Path path, Set<Message> previous, Set<Message> current) {
+                DefaultMessages.this.changed(path, previous, current);
+            }
+
+            @Override
+            public void kept(Path path, Set<Message> messages) {
+                for (Message message : messages) {
+                    sinks.publish(message);
+                }
+            }
+        }, processed);
+        try {
+            MessageStore.save(store, messages);
+        } catch (IOException e) {
+            logger.debug("Can't store messages", e);
+        }
+    }
+
+    private void changed(Path path, Set<Message> previous, Set<Message> current) {
+        BuildContext context = buildContext.get();
+        if (context instanceof DefaultBuildContext) {
+            // send all messages of the path at once
+            boolean replace = !current.containsAll(previous);
+            List<Message> messages = new ArrayList<>(current);
+            if (!replace) {
+                messages.removeAll(previous);
+            }
+            ((DefaultBuildContext) context).addMessages(path.toFile(), replace, messages);
+            return;
+        }
+        if (current.containsAll(previous)) {
+            // only new messages, no need to remove the existing ones
+            for (Message message : current) {
+                if (!previous.contains(message)) {
+                    addMarker(message);
+                }
+            }
+            return;
+        }
+        context.removeMessages(path.toFile());
+        for (Message message : current) {
+            addMarker(message);
+        }
+    }
+
+    /**
+     * Dispatches the summary of the messages suppressed by the flood control
+     *
+     * @param summary the summary
+     */
+    private void report(FloodControl.Summary summary) {
+        for (Message message : summary.getMessages()) {
+            dispatch(message);
+        }
+        warnSuppressed(summary);
+    }
+
+    private void warnSuppressed(FloodControl.Summary summary) {
+        if (summary.getSuppressed() > 0) {
+            logger.warn(
+                    "{} of {} messages where suppressed, the limits can be changed with"
+                            + " -Dplexus.build.messages.maxPerFile={} and -Dplexus.build.messages.maxPerType={}",
+                    summary.getSuppressed(),
+                    summary.getTotal(),
+                    maxPerFile,
+                    maxPerType);
+        }
+    }
+
+    private static Path getStoreFile(MavenSession session, MavenProject project, MojoExecution execution) {
+        if (session == null || project == null || execution == null) {
+            return null;
+        }
+        String store = session.getUserProperties().getProperty(STORE);
+        if (store == null) {
+            store = session.getSystemProperties().getProperty(STORE);
+        }
+        if (!Boolean.parseBoolean(store)
+                || project.getBuild() == null
+                || project.getBuild().getDirectory() == null) {
+            return null;
+        }
+        String name = execution.getArtifactId() + "-" + execution.getGoal() + "-" + execution.getExecutionId();
+        return Paths.get(project.getBuild().getDirectory(), "plexus-build", "messages", name + ".messages");
+    }
+
+    private static String owner(MavenProject project, MojoExecution execution) {
+        StringBuilder sb = new StringBuilder();
+        if (project != null) {
+            sb.append(project.getGroupId()).append(':').append(project.getArtifactId());
+        }
+        if (execution != null) {
+            sb.append('/')
+                    .append(execution.getArtifactId())
+                    .append(':')
+                    .append(execution.getGoal())
+                    .append('@')
+                    .append(execution.getExecutionId());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Handles a message by applying the flood control of the current mojo
+     * execution (or the shared one if the current thread does not belong to a
+     * mojo execution) and dispatching it.
      *
      * @param message the message to handle
      */
     private void handleMessage(Message message) {
-        // Log the message
-        String logMessage = message.toString();
+        BuildEvents.messageCreated(message.getType().name(), message.getPath(), message.getLine());
+        MessageBuffer buffer = getBuffer();
+        if (buffer.execution != null) {
+            if (buffer.floodControl.accept(message)) {
+                dispatch(message);
+            }
+            return;
+        }
+        if (floodControl.isExpired(window)) {
+            report(floodControl.next());
+        }
+        if (floodControl.accept(message)) {
+            dispatch(message);
+        }
+    }
 
-        switch (message.getType()) {
-            case ERROR:
-                logger.error(logMessage, message.getCause());
-                break;
-            case WARNING:
-                logger.warn(logMessage, message.getCause());
-                break;
-            case INFO:
-                logger.info(logMessage, message.getCause());
-                break;
+    /**
+     * Handles a message by publishing it to the sinks and delegating to the
+     * BuildContext.
+     *
+     * @param message the message to handle
+     */
+    private void dispatch(Message message) {
+        sinks.publish(message);
+        addMessage(message);
+    }
+
+    private void addMessage(Message message) {
+        if (message.getPath() == null) {
+            return;
+        }
+        MessageIndex.Execution execution = getBuffer().execution;
+        if (execution != null) {
+            execution.add(message);
+        } else {
+            addMarker(message);
         }
+    }
 
+    private void addMarker(Message message) {
         // Delegate to BuildContext for compatibility
         if (message.getPath() != null) {
             int severity = mapTypeToSeverity(message.getType());
-            buildContext.addMessage(
-                    message.getPath().toFile(),
-                    message.getLine(),
-                    message.getColumn(),
-                    message.getMessage(),
-                    severity,
-                    message.getCause());
+            buildContext
+                    .get()
+                    .addMessage(
+                            message.getPath().toFile(),
+                            message.getLine(),
+                            message.getColumn(),
+                            message.getMessage(),
+                            severity,
+                            message.getCause());
         }
     }
 
@@ -119,7 +516,7 @@ public class DefaultMessages implements Messages {
      * @param type the message type
      * @return the corresponding BuildContext severity
      */
-    private int mapTypeToSeverity(MessageType type) {
+    private static int mapTypeToSeverity(MessageType type) {
         switch (type) {
             case ERROR:
                 return BuildContext.SEVERITY_ERROR;
@@ -131,4 +528,51 @@ public class DefaultMessages implements Messages {
                 return 0;
         }
     }
+
+    /**
+     * A stateless builder that discards all messages, used if a message would not
+     * have any effect so no message (and builder) needs to be allocated
+     */
+    private static final class DiscardingMessageBuilder extends MessageBuilder {
+
+        private static final MessageBuilder INSTANCE = new DiscardingMessageBuilder();
+
+        private DiscardingMessageBuilder() {
+            super(MessageType.INFO, null, message -> {});
+        }
+
+        @Override
+        public MessageBuilder line(int line) {
+            return this;
+        }
+
+        @Override
+        public MessageBuilder column(int column) {
+            return this;
+        }
+
+        @Override
+        public MessageBuilder cause(Throwable cause) {
+            return this;
+        }
+
+        @Override
+        public void create(String message) {
+            if (message == null || message.trim().isEmpty()) {
+                throw new IllegalArgumentException("Message text must not be null or blank");
+            }
+        }
+    }
+
+    /**
+     * The state of a mojo execution, owned by the thread executing the mojo and
+     * shared with the other threads of the mojo through
+     * {@link DefaultMessages#executions}
+     */
+    private static final class MessageBuffer {
+
+        private volatile MessageIndex.Execution execution;
+        private volatile FloodControl floodControl;
+        private volatile Path store;
+    }
 }
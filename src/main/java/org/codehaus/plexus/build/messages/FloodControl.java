@@ -0,0 +1,173 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limits the number of messages per file and type and per type within a
+ * window (e.g. a mojo execution). Messages above the limits are only counted
+ * and can be reported as one summary message per file and type once the
+ * window ends, so a runaway producer can not flood the log or the IDE while
+ * the total number of messages is still reported.
+ */
+final class FloodControl {
+
+    private final int maxPerFile;
+    private final int maxPerType;
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+
+    /**
+     * @param maxPerFile the maximum number of messages of one type for a file, a
+     *                   value <code>&lt;= 0</code> disables the limit
+     * @param maxPerType the maximum number of messages of one type, a value
+     *                   <code>&lt;= 0</code> disables the limit
+     */
+    FloodControl(int maxPerFile, int maxPerType) {
+        this.maxPerFile = maxPerFile > 0 ? maxPerFile : Integer.MAX_VALUE;
+        this.maxPerType = maxPerType > 0 ? maxPerType : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Counts a message
+     *
+     * @param message the message
+     * @return <code>true</code> if the message should be reported,
+     *         <code>false</code> if it exceeds a limit
+     */
+    boolean accept(Message message) {
+        Window current = window.get();
+        Counter counter =
+                current.files.computeIfAbsent(new Key(message.getPath(), message.getType()), key -> new Counter());
+        if (counter.total.incrementAndGet() <= maxPerFile
+                && current.types.incrementAndGet(message.getType().ordinal()) <= maxPerType) {
+            return true;
+        }
+        counter.suppressed.incrementAndGet();
+        current.suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @param age the age in nanoseconds after which the current window ends
+     * @return <code>true</code> if the current window is older than the given age
+     */
+    boolean isExpired(long age) {
+        return System.nanoTime() - window.get().start > age;
+    }
+
+    /**
+     * Ends the current window and starts a new one
+     *
+     * @return the summary of the ended window
+     */
+    Summary next() {
+        Window ended = window.getAndSet(new Window());
+        Summary summary = new Summary();
+        summary.suppressed = ended.suppressed.get();
+        if (summary.suppressed == 0) {
+            return summary;
+        }
+        ended.files.forEach((key, counter) -> {
+            int suppressed = counter.suppressed.get();
+            summary.total += counter.total.get();
+            if (suppressed > 0) {
+                String name = key.type.name().toLowerCase();
+                String text = suppressed + " more " + name + (suppressed == 1 ? "" : "s") + " suppressed ("
+                        + counter.total.get() + " " + name + "s in total)";
+                summary.messages.add(new Message(key.type, key.path, 0, 0, text, null));
+            }
+        });
+        return summary;
+    }
+
+    /**
+     * The messages suppressed within a window
+     */
+    static final class Summary {
+
+        private final List<Message> messages = new ArrayList<>();
+        private int suppressed;
+        private int total;
+
+        /**
+         * @return one message per file and type that summarizes the suppressed
+         *         messages
+         */
+        List<Message> getMessages() {
+            return messages;
+        }
+
+        /**
+         * @return the number of suppressed messages
+         */
+        int getSuppressed() {
+            return suppressed;
+        }
+
+        /**
+         * @return the total number of messages including the suppressed ones
+         */
+        int getTotal() {
+            return total;
+        }
+    }
+
+    private static final class Window {
+
+        private final long start = System.nanoTime();
+        private final ConcurrentMap<Key, Counter> files = new ConcurrentHashMap<>();
+        private final AtomicIntegerArray types = new AtomicIntegerArray(MessageType.values().length);
+        private final AtomicInteger suppressed = new AtomicInteger();
+    }
+
+    private static final class Counter {
+
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger suppressed = new AtomicInteger();
+    }
+
+    private static final class Key {
+
+        private final Path path;
+        private final MessageType type;
+
+        Key(Path path, MessageType type) {
+            this.path = path;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(path) * 31 + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && Objects.equals(path, other.path);
+        }
+    }
+}
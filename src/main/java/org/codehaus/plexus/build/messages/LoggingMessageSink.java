@@ -0,0 +1,135 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs messages with SLF4J. Consecutive messages of the same path are collected
+ * until a message of another path arrives, the sink is flushed or
+ * <code>plexus.build.messages.batchSize</code> (default 1000) messages are
+ * collected and then logged with a single log statement per message type,
+ * messages with a cause are logged individually to include the stack trace.
+ * The text of a message is only formatted if its level is enabled.
+ */
+@Named("logging")
+@Singleton
+public class LoggingMessageSink implements MessageSink {
+
+    // use the name of the former logger so existing log configurations still apply
+    private static final Logger logger = LoggerFactory.getLogger(DefaultMessages.class);
+
+    private final int batchSize = Integer.getInteger("plexus.build.messages.batchSize", 1000);
+
+    private final List<Message> group = new ArrayList<>();
+
+    @Override
+    public boolean isEnabled(MessageType type) {
+        switch (type) {
+            case ERROR:
+                return logger.isErrorEnabled();
+            case WARNING:
+                return logger.isWarnEnabled();
+            case INFO:
+            default:
+                return logger.isInfoEnabled();
+        }
+    }
+
+    @Override
+    public void accept(Message message) {
+        if (!group.isEmpty()
+                && (group.size() >= batchSize || !Objects.equals(group.get(0).getPath(), message.getPath()))) {
+            flush();
+        }
+        group.add(message);
+    }
+
+    @Override
+    public void flush() {
+        if (group.size() == 1) {
+            Message message = group.get(0);
+            if (isEnabled(message.getType())) {
+                log(message.getType(), message.toString(), message.getCause());
+            }
+        } else if (!group.isEmpty()) {
+            log(group);
+        }
+        group.clear();
+    }
+
+    private void log(List<Message> group) {
+        for (MessageType type : MessageType.values()) {
+            if (!isEnabled(type)) {
+                continue;
+            }
+            StringBuilder sb = null;
+            int count = 0;
+            for (Message message : group) {
+                if (message.getType() != type) {
+                    continue;
+                }
+                if (message.getCause() != null) {
+                    log(type, message.toString(), message.getCause());
+                    continue;
+                }
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(System.lineSeparator()).append("  ");
+                appendLocation(sb, message);
+                sb.append(message.getMessage());
+                count++;
+            }
+            if (sb != null) {
+                Path path = group.get(0).getPath();
+                String header = (path == null ? "" : path.toAbsolutePath() + " ") + "(" + count + " "
+                        + type.name().toLowerCase() + (count == 1 ? "" : "s") + ")";
+                log(type, header + sb, null);
+            }
+        }
+    }
+
+    private static void appendLocation(StringBuilder sb, Message message) {
+        int line = message.getLine();
+        int column = message.getColumn();
+        if (line > 0 && column > 0) {
+            sb.append('[').append(line).append(':').append(column).append("] ");
+        } else if (line > 0) {
+            sb.append('[').append(line).append("] ");
+        } else if (column > 0) {
+            sb.append("[:").append(column).append("] ");
+        }
+    }
+
+    private static void log(MessageType type, String text, Throwable cause) {
+        switch (type) {
+            case ERROR:
+                logger.error(text, cause);
+                break;
+            case WARNING:
+                logger.warn(text, cause);
+                break;
+            case INFO:
+                logger.info(text, cause);
+                break;
+        }
+    }
+}
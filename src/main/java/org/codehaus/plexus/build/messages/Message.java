@@ -11,6 +11,7 @@ See the Apache License Version 2.0 for the specific language governing permissio
 package org.codehaus.plexus.build.messages;
 
 import java.nio.file.Path;
+import java.util.Objects;
 
 /**
  * Represents a message with all its parameters.
@@ -85,6 +86,31 @@ public class Message {
         return cause;
     }
 
+    /**
+     * Two messages are equal if they have the same type, path, location and text,
+     * the cause is not taken into account.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Message)) {
+            return false;
+        }
+        Message other = (Message) obj;
+        return type == other.type
+                && line == other.line
+                && column == other.column
+                && Objects.equals(path, other.path)
+                && Objects.equals(message, other.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, path, line, column, message);
+    }
+
     /**
      * Returns a string representation of this message.
      * The format is: path [line:column]: message
@@ -20,6 +20,11 @@ import java.util.function.Consumer;
  * It is typically not called directly by client code, but is used internally by the Messages API
  * implementations.
  * </p>
+ * <p>
+ * A builder can be reused to create several messages of the same type for the same path,
+ * e.g. in a loop over the lines of a file, as line, column and cause are reset once a
+ * message is created. Builders are not thread safe.
+ * </p>
  */
 public class MessageBuilder {
     private final MessageType type;
@@ -82,7 +87,8 @@ public class MessageBuilder {
 
     /**
      * Creates the message object with all collected parameters and informs the consumer.
-     * This method finalizes the builder and creates the message.
+     * Afterwards line, column and cause are reset so the builder can be used to create
+     * another message.
      *
      * @param message the message text (must not be null or blank)
      */
@@ -91,6 +97,9 @@ public class MessageBuilder {
             throw new IllegalArgumentException("Message text must not be null or blank");
         }
         Message msg = new Message(type, path, line, column, message, cause);
+        line = 0;
+        column = 0;
+        cause = null;
         consumer.accept(msg);
     }
 }
@@ -0,0 +1,212 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Index of the active messages of each owner (usually a mojo execution of a
+ * project) keyed by path. The messages created during an execution are
+ * collected separately and compared with the messages of the previous
+ * execution of the same owner when the execution is committed, so only paths
+ * whose messages have changed need to be reported. A path that gets messages
+ * in an execution has exactly these messages afterwards, the messages of the
+ * previous execution are replaced and not merged. Paths are made absolute and
+ * normalized, so the same file reported through a relative path still matches.
+ */
+final class MessageIndex {
+
+    private final Map<String, Map<Path, Set<Message>>> committed = new ConcurrentHashMap<>();
+
+    /**
+     * Begins a new execution, an execution may be used by several threads (e.g.
+     * the worker threads of a mojo)
+     *
+     * @param owner the owner of the messages
+     * @return the execution
+     */
+    Execution begin(String owner) {
+        return new Execution(owner);
+    }
+
+    /**
+     * @param owner the owner of the messages
+     * @return the messages of the last committed execution by path
+     */
+    Map<Path, Set<Message>> getMessages(String owner) {
+        return Collections.unmodifiableMap(committed.getOrDefault(owner, Collections.emptyMap()));
+    }
+
+    /**
+     * Makes the given messages the active messages of the owner unless the owner
+     * already has messages, e.g. to restore them from a previous process
+     *
+     * @param owner    the owner of the messages
+     * @param messages the messages by path
+     * @return <code>true</code> if the messages where restored
+     */
+    boolean restore(String owner, Map<Path, Set<Message>> messages) {
+        return !messages.isEmpty() && committed.putIfAbsent(owner, new HashMap<>(messages)) == null;
+    }
+
+    /**
+     * @param path the path to normalize
+     * @return the absolute and normalized path
+     */
+    static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Receives the changes of an execution
+     */
+    interface Listener {
+
+        /**
+         * Called for each path whose messages have changed
+         *
+         * @param path     the path
+         * @param previous the messages of the previous execution
+         * @param current  the messages of the current execution
+         */
+        void changed(Path path, Set<Message> previous, Set<Message> current);
+
+        /**
+         * Called for each path whose messages where neither added nor cleared by
+         * the execution and that was not processed again, so its messages are
+         * kept from the previous execution
+         *
+         * @param path     the path
+         * @param messages the messages kept
+         */
+        default void kept(Path path, Set<Message> messages) {}
+    }
+
+    final class Execution {
+
+        private final String owner;
+        private final Map<Path, Set<Message>> previous;
+        private Map<Path, Set<Message>> pending = new HashMap<>();
+        private boolean clearedAll;
+
+        private Execution(String owner) {
+            this.owner = owner;
+            this.previous = committed.getOrDefault(owner, Collections.emptyMap());
+        }
+
+        /**
+         * Adds a message, the messages this execution adds for a path replace all
+         * messages of the path from the previous execution
+         *
+         * @param message the message to add
+         */
+        synchronized void add(Message message) {
+            Path path = normalize(message.getPath());
+            if (!path.equals(message.getPath())) {
+                message = new Message(
+                        message.getType(),
+                        path,
+                        message.getLine(),
+                        message.getColumn(),
+                        message.getMessage(),
+                        message.getCause());
+            }
+            pending.computeIfAbsent(path, p -> new LinkedHashSet<>()).add(message);
+        }
+
+        /**
+         * Removes all messages of the path
+         *
+         * @param path the path to clear
+         */
+        synchronized void clear(Path path) {
+            pending.put(normalize(path), new LinkedHashSet<>());
+        }
+
+        /**
+         * Removes all messages of the owner
+         */
+        synchronized void clearAll() {
+            pending = new HashMap<>();
+            clearedAll = true;
+        }
+
+        /**
+         * Makes the messages of this execution the active ones and informs the
+         * listener about all paths whose messages have changed
+         *
+         * @param listener the listener to inform
+         * @return the now active messages by path
+         */
+        Map<Path, Set<Message>> commit(Listener listener) {
+            return commit(listener, path -> false);
+        }
+
+        /**
+         * Makes the messages of this execution the active ones and informs the
+         * listener about all paths whose messages have changed, paths the
+         * execution processed again without adding messages for them are treated
+         * as cleared
+         *
+         * @param listener  the listener to inform
+         * @param processed tests if a path was processed by the execution
+         * @return the now active messages by path
+         */
+        synchronized Map<Path, Set<Message>> commit(Listener listener, Predicate<Path> processed) {
+            if (!clearedAll) {
+                for (Path path : previous.keySet()) {
+                    if (!pending.containsKey(path) && processed.test(path)) {
+                        pending.put(path, new LinkedHashSet<>());
+                    }
+                }
+            }
+            Map<Path, Set<Message>> current = clearedAll ? new HashMap<>() : new HashMap<>(previous);
+            for (Map.Entry<Path, Set<Message>> entry : pending.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    current.remove(entry.getKey());
+                } else {
+                    current.put(entry.getKey(), entry.getValue());
+                }
+            }
+            Set<Path> paths = new LinkedHashSet<>(pending.keySet());
+            if (clearedAll) {
+                paths.addAll(previous.keySet());
+            }
+            for (Path path : paths) {
+                Set<Message> before = previous.getOrDefault(path, Collections.emptySet());
+                Set<Message> after = current.getOrDefault(path, Collections.emptySet());
+                if (!before.equals(after)) {
+                    listener.changed(path, before, after);
+                }
+            }
+            if (!clearedAll) {
+                for (Map.Entry<Path, Set<Message>> entry : previous.entrySet()) {
+                    if (!pending.containsKey(entry.getKey())) {
+                        listener.kept(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (current.isEmpty()) {
+                committed.remove(owner);
+            } else {
+                committed.put(owner, current);
+            }
+            return Collections.unmodifiableMap(current);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free ring buffer for many producers and a single consumer.
+ * Each slot carries a sequence number that tells producers when the slot is
+ * free and the consumer when it is filled, so neither side ever takes a lock.
+ */
+final class MessageRing {
+
+    private final int mask;
+    private final AtomicReferenceArray<Message> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * @param capacity the minimum capacity, rounded up to the next power of two
+     */
+    MessageRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds a message, may be called by any thread
+     *
+     * @param message the message to add
+     * @return <code>false</code> if the ring is full
+     */
+    boolean offer(Message message) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, message);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Removes up to the given number of messages, must only be called by the
+     * consumer thread
+     *
+     * @param target the list to add the messages to
+     * @param max    the maximum number of messages to remove
+     * @return the number of messages removed
+     */
+    int drain(List<Message> target, int max) {
+        int count = 0;
+        while (count < max) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            target.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return <code>true</code> if no message is waiting to be consumed
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
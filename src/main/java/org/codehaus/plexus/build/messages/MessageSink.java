@@ -0,0 +1,89 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.util.List;
+
+/**
+ * A destination for the messages created through {@link Messages}, e.g. the log
+ * or a report file. Sinks are provided as components and each sink is fed by
+ * {@link DefaultMessages} from its own bounded queue on a dedicated thread, so
+ * a slow sink does not slow down the mojo creating the messages. All methods
+ * of a sink are called from that thread only.
+ */
+public interface MessageSink {
+
+    /**
+     * Handles a message
+     *
+     * @param message the message
+     */
+    void accept(Message message);
+
+    /**
+     * Handles a batch of messages that where queued at the same time, the default
+     * calls {@link #accept(Message)} for each message.
+     *
+     * @param messages the messages in the order they where created
+     */
+    default void acceptAll(List<Message> messages) {
+        for (Message message : messages) {
+            accept(message);
+        }
+    }
+
+    /**
+     * Called when a mojo execution ends after all messages created so far have
+     * been passed to this sink, a sink that buffers data should write it now.
+     */
+    default void flush() {}
+
+    /**
+     * Allows to skip creating messages nobody is interested in.
+     *
+     * @param type the type of a message
+     * @return <code>true</code> if messages of the given type are handled by this
+     *         sink
+     */
+    default boolean isEnabled(MessageType type) {
+        return true;
+    }
+
+    /**
+     * @return the maximum number of messages queued for this sink
+     */
+    default int getCapacity() {
+        return 1024;
+    }
+
+    /**
+     * @return what happens if the queue of this sink is full
+     */
+    default OverflowPolicy getOverflowPolicy() {
+        return OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Describes what happens with a message if the queue of a sink is full
+     */
+    enum OverflowPolicy {
+        /**
+         * Block the thread creating the message until there is room in the queue,
+         * use this if a sink must never miss a message
+         */
+        BLOCK,
+        /**
+         * Drop the message, the number of dropped messages is logged when the mojo
+         * execution ends
+         */
+        DROP;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes the messages of a mojo execution so they survive the
+ * process. Messages of files that no longer exist are not restored, the cause
+ * of a message is not stored. The file is replaced atomically, a missing,
+ * unreadable or outdated file results in no messages.
+ */
+final class MessageStore {
+
+    private static final int MAGIC = 0x504d5331; // PMS1
+
+    private MessageStore() {}
+
+    /**
+     * Loads the messages from the given file
+     *
+     * @param file the file to load
+     * @return the messages by path
+     */
+    static Map<Path, Set<Message>> load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyMap();
+        }
+        Map<Path, Set<Message>> messages = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return Collections.emptyMap();
+            }
+            MessageType[] types = MessageType.values();
+            int paths = in.readInt();
+            for (int i = 0; i < paths; i++) {
+                Path path = MessageIndex.normalize(Paths.get(readString(in)));
+                int count = in.readInt();
+                Set<Message> set = new LinkedHashSet<>();
+                for (int j = 0; j < count; j++) {
+                    MessageType type = types[in.readUnsignedByte()];
+                    int line = in.readInt();
+                    int column = in.readInt();
+                    set.add(new Message(type, path, line, column, readString(in), null));
+                }
+                if (!set.isEmpty() && Files.exists(path)) {
+                    messages.put(path, set);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return Collections.emptyMap();
+        }
+        return messages;
+    }
+
+    /**
+     * Writes the messages to the given file, if there are no messages the file is
+     * deleted
+     *
+     * @param file     the file to write
+     * @param messages the messages by path
+     * @throws IOException if writing failed
+     */
+    static void save(Path file, Map<Path, Set<Message>> messages) throws IOException {
+        if (messages.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(messages.size());
+                for (Map.Entry<Path, Set<Message>> entry : messages.entrySet()) {
+                    writeString(out, MessageIndex.normalize(entry.getKey()).toString());
+                    out.writeInt(entry.getValue().size());
+                    for (Message message : entry.getValue()) {
+                        out.writeByte(message.getType().ordinal());
+                        out.writeInt(message.getLine());
+                        out.writeInt(message.getColumn());
+                        writeString(out, message.getMessage());
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // writeUTF is limited to 64k which is not enough for some messages
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.execution.MojoExecutionListener;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes all messages of a build into a machine readable report per project if
+ * the property <code>plexus.build.messages.report</code> is set to
+ * <code>sarif</code> (a <a href="https://sarifweb.azurewebsites.net/">SARIF</a>
+ * 2.1.0 log in <code>target/plexus-build/messages.sarif</code>) or
+ * <code>jsonl</code> (one JSON object per line in
+ * <code>target/plexus-build/messages.jsonl</code>). A message is assigned to
+ * the project whose base directory contains the file of the message, or to the
+ * top level project otherwise.
+ * <p>
+ * Messages are appended to the report through a small fixed buffer, so writing
+ * a message does not depend on the number of messages written before. The
+ * report files are only kept open until the next flush (at the end of each
+ * mojo execution) and are valid documents after each flush, the SARIF footer
+ * is overwritten by the next messages appended.
+ * </p>
+ */
+@Named("report")
+@Singleton
+public class ReportMessageSink implements MessageSink, MojoExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportMessageSink.class);
+
+    private static final String REPORT = "plexus.build.messages.report";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final byte[] SARIF_HEADER = ("{\"version\":\"2.1.0\","
+                    + "\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\","
+                    + "\"runs\":[{\"tool\":{\"driver\":{\"name\":\"plexus-build-api\"}},\"results\":[\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SARIF_FOOTER = "]}]}\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The request of the current build, it is shared by the per project copies
+     * of the session of a parallel build
+     */
+    private volatile Object request;
+
+    private volatile Format format;
+
+    private volatile Map<Path, Report> reports = new ConcurrentHashMap<>();
+
+    private volatile Report topLevel;
+
+    /**
+     * The reports written to since the last flush, only accessed by the sink
+     * thread
+     */
+    private final List<Report> open = new ArrayList<>();
+
+    private final StringBuilder line = new StringBuilder();
+
+    @Override
+    public boolean isEnabled(MessageType type) {
+        return format != null;
+    }
+
+    @Override
+    public void beforeMojoExecution(MojoExecutionEvent event) {
+        MavenSession session = event.getSession();
+        MavenProject project = event.getProject();
+        if (session == null || project == null) {
+            return;
+        }
+        Object request = session.getRequest();
+        if (request != this.request) {
+            synchronized (this) {
+                if (request != this.request) {
+                    // a new build, e.g. in a long running daemon
+                    this.format = Format.of(getProperty(session));
+                    this.reports = new ConcurrentHashMap<>();
+                    this.topLevel = null;
+                    this.request = request;
+                }
+            }
+        }
+        Format format = this.format;
+        if (format == null || project.getBasedir() == null || project.getBuild().getDirectory() == null) {
+            return;
+        }
+        Report report = reports.computeIfAbsent(project.getBasedir().toPath().toAbsolutePath(), basedir -> {
+            Path file = Paths.get(project.getBuild().getDirectory(), "plexus-build", "messages." + format.extension);
+            try {
+                // messages of a previous build must not be mixed with the current ones
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Can't delete report " + file, e);
+            }
+            return new Report(file, format);
+        });
+        if (topLevel == null && project == session.getTopLevelProject()) {
+            topLevel = report;
+        }
+    }
+
+    @Override
+    public void afterMojoExecutionSuccess(MojoExecutionEvent event) {}
+
+    @Override
+    public void afterExecutionFailure(MojoExecutionEvent event) {}
+
+    private static String getProperty(MavenSession session) {
+        String value = session.getUserProperties().getProperty(REPORT);
+        if (value == null) {
+            value = session.getSystemProperties().getProperty(REPORT);
+        }
+        return value;
+    }
+
+    @Override
+    public void accept(Message message) {
+        Report report = getReport(message.getPath());
+        if (report == null) {
+            return;
+        }
+        try {
+            if (!report.isOpen()) {
+                report.open();
+                open.add(report);
+            }
+            line.setLength(0);
+            if (report.format == Format.SARIF) {
+                appendSarif(message, report.results > 0);
+            } else {
+                appendJson(message);
+            }
+            report.write(line);
+        } catch (IOException e) {
+            logger.warn("Can't write report " + report.file + ": " + e);
+            open.remove(report);
+            try {
+                if (report.isOpen()) {
+                    // at least try to leave a valid document behind
+                    report.finish();
+                }
+            } catch (IOException | RuntimeException suppressed) {
+                // the report is incomplete, nothing we can do
+            } finally {
+                report.close();
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Report report : open) {
+            try {
+                if (report.isOpen()) {
+                    report.finish();
+                }
+            } catch (IOException | RuntimeException e) {
+                // must not keep the other reports from being finished
+                logger.warn("Can't write report " + report.file + ": " + e);
+            } finally {
+                report.close();
+            }
+        }
+        open.clear();
+    }
+
+    private Report getReport(Path path) {
+        Map<Path, Report> reports = this.reports;
+        if (path != null) {
+            for (Path parent = path.toAbsolutePath().getParent(); parent != null; parent = parent.getParent()) {
+                Report report = reports.get(parent);
+                if (report != null) {
+                    return report;
+                }
+            }
+        }
+        return topLevel;
+    }
+
+    private void appendSarif(Message message, boolean separator) {
+        if (separator) {
+            line.append(',');
+        }
+        line.append("{\"level\":\"").append(level(message.getType())).append("\",\"message\":{\"text\":");
+        appendString(message.getMessage());
+        line.append('}');
+        Path path = message.getPath();
+        if (path != null) {
+            line.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+            appendString(path.toAbsolutePath().toUri().toString());
+            line.append('}');
+            if (message.getLine() > 0) {
+                line.append(",\"region\":{\"startLine\":").append(message.getLine());
+                if (message.getColumn() > 0) {
+                    line.append(",\"startColumn\":").append(message.getColumn());
+                }
+                line.append('}');
+            }
+            line.append("}}]");
+        }
+        line.append("}\n");
+    }
+
+    private void appendJson(Message message) {
+        line.append("{\"type\":\"")
+                .append(message.getType().name().toLowerCase())
+                .append('"');
+        if (message.getPath() != null) {
+            line.append(",\"path\":");
+            appendString(message.getPath().toAbsolutePath().toString());
+        }
+        line.append(",\"line\":").append(message.getLine());
+        line.append(",\"column\":").append(message.getColumn());
+        line.append(",\"message\":");
+        appendString(message.getMessage());
+        line.append("}\n");
+    }
+
+    private static String level(MessageType type) {
+        switch (type) {
+            case ERROR:
+                return "error";
+            case WARNING:
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+
+    private void appendString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private enum Format {
+        SARIF("sarif"),
+        JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        static Format of(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            logger.warn("Unknown report format {}, supported are sarif and jsonl", value);
+            return null;
+        }
+    }
+
+    /**
+     * The report of a project, only accessed by the sink thread
+     */
+    private static final class Report {
+
+        private final Path file;
+        private final Format format;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private FileChannel channel;
+        private long position;
+        private int results;
+
+        Report(Path file, Format format) {
+            this.file = file;
+            this.format = format;
+        }
+
+        boolean isOpen() {
+            return channel != null;
+        }
+
+        void open() throws IOException {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (position == 0 && format == Format.SARIF) {
+                channel.truncate(0);
+                put(SARIF_HEADER);
+            }
+            // writes continue at the end of the last message and so overwrite the footer
+        }
+
+        void write(CharSequence text) throws IOException {
+            put(text.toString().getBytes(StandardCharsets.UTF_8));
+            results++;
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.remaining()) {
+                drain();
+            }
+            if (bytes.length > buffer.capacity()) {
+                ByteBuffer wrap = ByteBuffer.wrap(bytes);
+                while (wrap.hasRemaining()) {
+                    position += channel.write(wrap, position);
+                }
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Writes all buffered data and the footer so the file is a valid document
+         */
+        void finish() throws IOException {
+            drain();
+            if (format == Format.SARIF) {
+                ByteBuffer footer = ByteBuffer.wrap(SARIF_FOOTER);
+                long end = position;
+                while (footer.hasRemaining()) {
+                    end += channel.write(footer, end);
+                }
+                channel.truncate(end);
+            } else {
+                channel.truncate(position);
+            }
+        }
+
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // nothing we can do
+                }
+                channel = null;
+            }
+            buffer.clear();
+        }
+    }
+}
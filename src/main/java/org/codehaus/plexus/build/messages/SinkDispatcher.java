@@ -0,0 +1,298 @@
+/*
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.messages;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes messages to a set of {@link MessageSink}s. Each sink has its own
+ * {@link MessageRing} drained by a dedicated daemon thread that is started with
+ * the first message, so publishing a message never waits for a sink unless its
+ * queue is full and the sink asked to {@link MessageSink.OverflowPolicy#BLOCK
+ * block}. {@link #flush(long)} acts as a barrier that waits until all sinks
+ * have handled the messages published before, a sink is also flushed once no
+ * further messages arrived for a short time. As the workers are daemon threads
+ * a shutdown hook flushes all started workers when the JVM exits, waiting at
+ * most <code>plexus.build.messages.shutdownTimeout</code> (default 5000)
+ * milliseconds in total, so messages that were not flushed by the end of a
+ * mojo execution are not lost. {@link #close(long)} stops the workers, so a
+ * long running JVM that recreates the container (e.g. an IDE or a daemon)
+ * does not keep the threads and the sinks of earlier instances.
+ */
+final class SinkDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SinkDispatcher.class);
+
+    /**
+     * The time a blocked producer or an idle worker waits before checking again
+     */
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * The time a worker waits for further messages before it flushes its sink
+     */
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private static final long SHUTDOWN_TIMEOUT = Long.getLong("plexus.build.messages.shutdownTimeout", 5000);
+
+    /**
+     * All workers with a running thread, flushed by the shutdown hook
+     */
+    private static final Queue<Worker> STARTED = new ConcurrentLinkedQueue<>();
+
+    private static final AtomicBoolean SHUTDOWN_HOOK = new AtomicBoolean();
+
+    private final Worker[] workers;
+
+    /**
+     * @param sinks     the sinks to publish to
+     * @param batchSize the maximum number of messages passed to a sink at once
+     */
+    SinkDispatcher(List<MessageSink> sinks, int batchSize) {
+        workers = new Worker[sinks.size()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(sinks.get(i), Math.max(1, batchSize));
+        }
+    }
+
+    /**
+     * @param type the type of a message
+     * @return <code>true</code> if any sink handles messages of the given type
+     */
+    boolean isEnabled(MessageType type) {
+        for (Worker worker : workers) {
+            if (worker.sink.isEnabled(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes a message to all sinks that handle its type
+     *
+     * @param message the message to publish
+     */
+    void publish(Message message) {
+        for (Worker worker : workers) {
+            if (worker.sink.isEnabled(message.getType())) {
+                worker.publish(message);
+            }
+        }
+    }
+
+    /**
+     * Waits until all sinks have handled the messages published so far and have
+     * been flushed
+     *
+     * @param timeout the maximum time to wait for each sink in milliseconds
+     */
+    void flush(long timeout) {
+        for (Worker worker : workers) {
+            worker.flush(timeout);
+        }
+    }
+
+    /**
+     * Flushes all sinks and stops the workers, messages published afterwards are
+     * dropped
+     *
+     * @param timeout the maximum time to wait for each sink in milliseconds
+     */
+    void close(long timeout) {
+        for (Worker worker : workers) {
+            worker.close(timeout);
+        }
+    }
+
+    private static void register(Worker worker) {
+        STARTED.add(worker);
+        if (SHUTDOWN_HOOK.compareAndSet(false, true)) {
+            Runtime.getRuntime()
+                    .addShutdownHook(new Thread(SinkDispatcher::flushAll, "plexus-build-messages-shutdown"));
+        }
+    }
+
+    private static void flushAll() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SHUTDOWN_TIMEOUT);
+        for (Worker worker : STARTED) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return;
+            }
+            worker.flush(remaining);
+        }
+    }
+
+    private static final class Worker implements Runnable {
+
+        private final MessageSink sink;
+        private final MessageRing ring;
+        private final int batchSize;
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile long consumed;
+        private volatile long flushRequested;
+        private long flushed;
+        private volatile boolean idle;
+        private boolean dirty;
+        private volatile Thread thread;
+        private volatile boolean closed;
+
+        Worker(MessageSink sink, int batchSize) {
+            this.sink = sink;
+            this.ring = new MessageRing(sink.getCapacity());
+            this.batchSize = batchSize;
+        }
+
+        void publish(Message message) {
+            if (closed) {
+                dropped.incrementAndGet();
+                return;
+            }
+            start();
+            while (!ring.offer(message)) {
+                if (closed || sink.getOverflowPolicy() == MessageSink.OverflowPolicy.DROP) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            published.incrementAndGet();
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void flush(long timeout) {
+            if (thread == null) {
+                return;
+            }
+            long target = published.get();
+            synchronized (this) {
+                if (flushRequested < target) {
+                    flushRequested = target;
+                }
+                LockSupport.unpark(thread);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                while (flushed < target) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        logger.warn(
+                                "Message sink {} did not finish in time",
+                                sink.getClass().getName());
+                        break;
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            long count = dropped.getAndSet(0);
+            if (count > 0) {
+                logger.warn(
+                        "{} messages where dropped by message sink {}",
+                        count,
+                        sink.getClass().getName());
+            }
+        }
+
+        void close(long timeout) {
+            flush(timeout);
+            synchronized (this) {
+                closed = true;
+                if (thread != null) {
+                    LockSupport.unpark(thread);
+                    STARTED.remove(this);
+                }
+            }
+        }
+
+        private void start() {
+            if (thread == null) {
+                synchronized (this) {
+                    if (thread == null && !closed) {
+                        Thread t = new Thread(
+                                this, "plexus-build-messages-" + sink.getClass().getSimpleName());
+                        t.setDaemon(true);
+                        t.start();
+                        thread = t;
+                        register(this);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Message> batch = new ArrayList<>();
+            while (!closed) {
+                int count = ring.drain(batch, batchSize);
+                if (count > 0) {
+                    try {
+                        sink.acceptAll(batch);
+                    } catch (RuntimeException e) {
+                        logger.warn("Message sink " + sink.getClass().getName() + " failed", e);
+                    }
+                    batch.clear();
+                    consumed += count;
+                    dirty = true;
+                    continue;
+                }
+                long target = flushRequested;
+                if (target > flushed && consumed >= target) {
+                    flushSink();
+                    synchronized (this) {
+                        flushed = consumed;
+                        notifyAll();
+                    }
+                    continue;
+                }
+                idle = true;
+                if (!ring.isEmpty()) {
+                    // a message is about to be published
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                } else if (dirty) {
+                    LockSupport.parkNanos(this, LINGER_NANOS);
+                    if (ring.isEmpty() && flushRequested <= flushed) {
+                        flushSink();
+                    }
+                } else if (flushRequested <= flushed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+
+        private void flushSink() {
+            dirty = false;
+            try {
+                sink.flush();
+            } catch (RuntimeException e) {
+                logger.warn("Message sink " + sink.getClass().getName() + " failed", e);
+            }
+        }
+    }
+}
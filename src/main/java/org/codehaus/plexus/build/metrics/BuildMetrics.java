@@ -0,0 +1,127 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+/**
+ * SPI to record metrics about the operations performed through the build API.
+ * <p>
+ * Implementations are called on the hot path of the build (e.g. for every file
+ * written) and therefore must be thread-safe, non blocking and cheap. The
+ * default implementation keeps the values in memory and exposes them through
+ * JMX, other implementations (e.g. to forward values to a monitoring system)
+ * can be provided as a component with a higher priority.
+ * </p>
+ */
+public interface BuildMetrics {
+
+    /**
+     * An implementation that discards all values
+     */
+    BuildMetrics NOOP = new BuildMetrics() {
+
+        @Override
+        public void increment(Counter counter, long amount) {}
+
+        @Override
+        public void record(Timer timer, long nanos) {}
+    };
+
+    /**
+     * Adds the given amount to a counter
+     *
+     * @param counter the counter to increment
+     * @param amount  the amount to add
+     */
+    void increment(Counter counter, long amount);
+
+    /**
+     * Records the duration of an operation
+     *
+     * @param timer the timer to record
+     * @param nanos the duration in nanoseconds
+     */
+    void record(Timer timer, long nanos);
+
+    /**
+     * The counters maintained by the build API
+     */
+    public static enum Counter {
+        /**
+         * Files written by an output stream of the build context because the
+         * content has changed
+         */
+        WRITES_PERFORMED,
+        /**
+         * Files not written by an output stream of the build context because the
+         * content was unchanged
+         */
+        WRITES_SKIPPED,
+        /**
+         * Bytes passed to output streams of the build context, these are compared
+         * against the existing content of the file
+         */
+        BYTES_COMPARED,
+        /**
+         * Scans performed by scanners of the build context
+         */
+        SCANS,
+        /**
+         * Files reported by scanners of the build context
+         */
+        FILES_SCANNED,
+        /**
+         * Files or folders refreshed through the build context
+         */
+        REFRESHES,
+        /**
+         * Messages send through a build connection
+         */
+        MESSAGES_SENT,
+        /**
+         * Messages that could not be send through a build connection
+         */
+        MESSAGES_FAILED,
+        /**
+         * Bytes send through a build connection
+         */
+        BYTES_SENT,
+        /**
+         * Bytes received through a build connection
+         */
+        BYTES_RECEIVED,
+        /**
+         * File attributes read from the file system by the build context
+         */
+        FILE_ATTRIBUTES_READ,
+        /**
+         * File attributes served from the cache of the build context without
+         * accessing the file system
+         */
+        FILE_ATTRIBUTES_CACHED;
+    }
+
+    /**
+     * The timers maintained by the build API
+     */
+    public static enum Timer {
+        /**
+         * Duration of a scan performed by scanners of the build context
+         */
+        SCAN,
+        /**
+         * Duration of sending a message through a build connection until the reply
+         * is received
+         */
+        ROUND_TRIP;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link DefaultBuildMetrics} registered as
+ * <code>org.codehaus.plexus.build:type=BuildMetrics</code>
+ */
+public interface BuildMetricsMXBean {
+
+    /**
+     * @return the current value of all counters by their name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return the statistics of all timers by their name
+     */
+    Map<String, TimerStatistics> getTimers();
+
+    /**
+     * Resets all counters and timers
+     */
+    void reset();
+}
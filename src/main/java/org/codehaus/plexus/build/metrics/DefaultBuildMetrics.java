@@ -0,0 +1,111 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default implementation that keeps all values in memory using
+ * {@link LongAdder}s and lock free histograms and exposes them through JMX
+ */
+@Named("default")
+@Singleton
+public class DefaultBuildMetrics implements BuildMetrics, BuildMetricsMXBean {
+
+    /**
+     * The name the metrics are registered with in the platform MBean server
+     */
+    public static final String OBJECT_NAME = "org.codehaus.plexus.build:type=BuildMetrics";
+
+    private final Logger logger = LoggerFactory.getLogger(DefaultBuildMetrics.class);
+
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+    private final LatencyHistogram[] timers = new LatencyHistogram[Timer.values().length];
+
+    /**
+     * Creates the metrics and registers them with the platform MBean server
+     */
+    public DefaultBuildMetrics() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        for (int i = 0; i < timers.length; i++) {
+            timers[i] = new LatencyHistogram();
+        }
+        register();
+    }
+
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            // a JVM might host more than one build (e.g. a daemon), the latest wins
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException | RuntimeException e) {
+            logger.debug("Can't register build metrics MBean", e);
+        }
+    }
+
+    @Override
+    public void increment(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    @Override
+    public void record(Timer timer, long nanos) {
+        timers[timer.ordinal()].record(nanos);
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            map.put(counter.name(), counters[counter.ordinal()].sum());
+        }
+        return map;
+    }
+
+    @Override
+    public Map<String, TimerStatistics> getTimers() {
+        Map<String, TimerStatistics> map = new LinkedHashMap<>();
+        for (Timer timer : Timer.values()) {
+            map.put(timer.name(), new TimerStatistics(timers[timer.ordinal()]));
+        }
+        return map;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+        for (LatencyHistogram timer : timers) {
+            timer.reset();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the values recorded by a timer, all durations are in
+ * microseconds
+ */
+public final class TimerStatistics {
+
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    TimerStatistics(LatencyHistogram histogram) {
+        count = histogram.getCount();
+        mean = count == 0 ? 0 : micros(histogram.getSum() / count);
+        p50 = micros(histogram.getValueAtPercentile(50));
+        p90 = micros(histogram.getValueAtPercentile(90));
+        p99 = micros(histogram.getValueAtPercentile(99));
+        max = micros(histogram.getMax());
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean duration
+     */
+    public long getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the median duration
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * @return the 90th percentile of the durations
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * @return the 99th percentile of the durations
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * @return the maximum duration
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + mean + "us, p50=" + p50 + "us, p90=" + p90 + "us, p99=" + p99 + "us, max="
+                + max + "us";
+    }
+}
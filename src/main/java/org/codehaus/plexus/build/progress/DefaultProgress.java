@@ -2,33 +2,120 @@ package org.codehaus.plexus.build.progress;
 
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.inject.Singleton;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.MojoExecutionEvent;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.apache.maven.execution.scope.WeakMojoExecutionListener;
 import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.build.connect.BuildConnection;
+import org.codehaus.plexus.build.connect.messages.ProgressMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The default implementation simply log to debug and check for thread
- * interruption
+ * The default implementation log to debug, check for thread interruption and
+ * forwards the progress to the {@link BuildConnection}. To not flood the
+ * connection at most one {@link ProgressMessage} is send per
+ * <code>plexus.build.ipc.progressInterval</code> (default 100) milliseconds,
+ * the last state of a task is send when a new task is started or the mojo
+ * execution ends.
+ * <p>
+ * Work can be reported concurrently from any thread (e.g. by children created
+ * with {@link #split(int)}), the amount of work is kept in a {@link LongAdder}
+ * and the more expensive consistency checks are only performed once per
+ * interval by a single thread.
+ * </p>
+ * <p>
+ * Besides thread interruption a cancellation requested by the IDE for the
+ * session or mojo execution is reported, the IDE transfers the request with
+ * the reply to the next message (e.g. a progress update), so checking for
+ * cancellation never communicates with the IDE itself.
+ * </p>
+ * <p>
+ * The duration and throughput of each mojo execution is recorded in a small
+ * history per project, kept in
+ * <code>~/.m2/plexus-build-history/&lt;groupId&gt;/&lt;artifactId&gt;.properties</code>
+ * (or below the directory given by the property
+ * <code>plexus.build.progress.history</code>) so it survives clean builds. The
+ * history is used to estimate the remaining time reported to the IDE and a
+ * warning is logged if the throughput of an execution drops below
+ * <code>plexus.build.progress.regressionThreshold</code> (default 0.5) times the
+ * historical throughput.
+ * </p>
  */
 @Named("default")
-@Singleton
 @MojoExecutionScoped
-public class DefaultProgress implements Progress {
+public class DefaultProgress implements Progress, WeakMojoExecutionListener {
+
+    private static final String HISTORY = "plexus.build.progress.history";
+
+    /**
+     * Number of recorded executions required before regressions are reported
+     */
+    private static final int MIN_HISTORY = 3;
+
+    /**
+     * Executions shorter than this are too noisy to report regressions
+     */
+    private static final long MIN_DURATION = TimeUnit.SECONDS.toNanos(1);
 
     private final Logger logger = LoggerFactory.getLogger(DefaultProgress.class);
     private MojoExecution execution;
-    private int work;
+    private BuildConnection connection;
+    private volatile MavenSession session;
+    private volatile MavenProject project;
+    private final long interval = TimeUnit.MILLISECONDS.toNanos(Long.getLong("plexus.build.ipc.progressInterval", 100));
+    private final AtomicLong lastSent;
+    private final LongAdder worked = new LongAdder();
+    private final AtomicBoolean overrun = new AtomicBoolean();
+    private volatile boolean pending;
+    private volatile String task;
+    private volatile int total = -1;
+    private volatile BooleanSupplier cancelRequest = () -> false;
+    private volatile long started = System.nanoTime();
+    private volatile long taskStarted = started;
+    private volatile long completedWork;
+    private volatile ProgressHistory history;
+    private String key;
 
-    @Inject
+    /**
+     * Creates a progress that is only logged
+     *
+     * @param execution the execution to report progress for
+     */
     public DefaultProgress(MojoExecution execution) {
+        this(execution, null);
+    }
+
+    /**
+     * @param execution  the execution to report progress for
+     * @param connection the connection to forward the progress to
+     */
+    @Inject
+    public DefaultProgress(MojoExecution execution, BuildConnection connection) {
         this.execution = execution;
+        this.connection = connection;
+        this.lastSent = new AtomicLong(System.nanoTime() - interval);
     }
 
     @Override
     public void startTask(String task, int work) {
+        flush(false);
+        this.task = task;
+        completedWork += worked.sumThenReset();
+        taskStarted = System.nanoTime();
+        overrun.set(false);
         setRemaining(work);
         logger.debug(execution.getExecutionId() + ": " + task);
     }
@@ -41,24 +128,161 @@ public class DefaultProgress implements Progress {
         if (work < 0) {
             logger.warn(execution.getExecutionId() + " reported negative amount of work!");
         }
-        if (this.work < 0) {
-            return;
-        }
-        if (work > this.work) {
-            this.work = -1;
-            logger.warn(execution.getExecutionId() + " reported more work than expected!");
-        } else {
-            this.work -= work;
-        }
+        worked.add(work);
+        update();
     }
 
     @Override
     public void setRemaining(int work) {
-        this.work = work <= 0 ? -1 : work;
+        total = work <= 0 ? -1 : (int) Math.min(Integer.MAX_VALUE, worked.sum() + work);
+        update();
     }
 
     @Override
     public boolean isCancelRequested() {
-        return Thread.currentThread().isInterrupted();
+        return Thread.currentThread().isInterrupted() || cancelRequest.getAsBoolean();
+    }
+
+    @Override
+    public void beforeMojoExecution(MojoExecutionEvent event) {
+        session = event.getSession();
+        project = event.getProject();
+        if (connection != null) {
+            cancelRequest = connection.getCancelRequest(session, execution);
+        }
+        Path file = getHistoryFile(event.getProject());
+        if (file != null) {
+            key = ProgressMessage.mojoKey(project, execution);
+            history = ProgressHistory.load(file);
+        }
+        started = System.nanoTime();
+        taskStarted = started;
+    }
+
+    @Override
+    public void afterMojoExecutionSuccess(MojoExecutionEvent event) {
+        flush(true);
+        ProgressHistory history = this.history;
+        if (history != null) {
+            long duration = System.nanoTime() - started;
+            long work = completedWork + worked.sum();
+            double throughput = work > 0 && duration > 0 ? work * 1e9 / duration : 0;
+            checkRegression(history, duration, throughput);
+            history.record(key, duration, throughput);
+            try {
+                history.save();
+            } catch (IOException e) {
+                logger.debug("Can't save progress history", e);
+            }
+        }
+    }
+
+    private void checkRegression(ProgressHistory history, long duration, double throughput) {
+        double historical = history.getThroughput(key);
+        if (history.getCount(key) < MIN_HISTORY || historical <= 0 || throughput <= 0 || duration < MIN_DURATION) {
+            return;
+        }
+        double threshold = Double.parseDouble(System.getProperty("plexus.build.progress.regressionThreshold", "0.5"));
+        if (throughput < historical * threshold) {
+            logger.warn(String.format(
+                    "%s processed %.1f units/s but historically %.1f units/s, this is a drop of %.0f%%",
+                    execution.getExecutionId(), throughput, historical, (1 - throughput / historical) * 100));
+        }
+    }
+
+    private Path getHistoryFile(MavenProject project) {
+        if (project == null) {
+            return null;
+        }
+        String directory = null;
+        if (session != null) {
+            directory = session.getUserProperties().getProperty(HISTORY);
+            if (directory == null) {
+                directory = session.getSystemProperties().getProperty(HISTORY);
+            }
+        }
+        if (directory == null || directory.trim().isEmpty()) {
+            // not in the build directory, a clean build would discard the history
+            directory = Paths.get(System.getProperty("user.home"), ".m2", "plexus-build-history").toString();
+        }
+        return Paths.get(directory, project.getGroupId(), project.getArtifactId() + ".properties");
+    }
+
+    /**
+     * Estimates the remaining time, while a task has only processed a small part
+     * of its work the historical throughput is preferred over the current one.
+     */
+    private long estimateRemaining(int total, long worked) {
+        long now = System.nanoTime();
+        ProgressHistory history = this.history;
+        if (total > 0 && worked <= total) {
+            long elapsed = now - taskStarted;
+            double throughput = worked > 0 && elapsed > 0 ? worked * 1e9 / elapsed : 0;
+            double historical = history == null ? 0 : history.getThroughput(key);
+            if (historical > 0 && (throughput <= 0 || worked * 10 < total)) {
+                throughput = historical;
+            }
+            if (throughput > 0) {
+                return (long) ((total - worked) / throughput * 1000);
+            }
+        }
+        if (history != null) {
+            long duration = history.getDuration(key);
+            if (duration > 0) {
+                return TimeUnit.NANOSECONDS.toMillis(Math.max(0, duration - (now - started)));
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void afterExecutionFailure(MojoExecutionEvent event) {
+        flush(true);
+    }
+
+    private boolean isEnabled() {
+        return connection != null && connection.isEnabled(ProgressMessage.class);
+    }
+
+    private void update() {
+        long now = System.nanoTime();
+        long last = lastSent.get();
+        if (now - last >= interval && lastSent.compareAndSet(last, now)) {
+            publish(false);
+        } else if (!pending) {
+            pending = true;
+        }
+    }
+
+    private void flush(boolean done) {
+        if (pending || done) {
+            lastSent.set(System.nanoTime());
+            publish(done);
+        }
+    }
+
+    private void publish(boolean done) {
+        pending = false;
+        int total = this.total;
+        long worked = this.worked.sum();
+        if (total > 0 && worked > total) {
+            if (overrun.compareAndSet(false, true)) {
+                logger.warn(execution.getExecutionId() + " reported more work than expected!");
+            }
+            total = -1;
+        }
+        if (isEnabled()) {
+            long remaining = done ? 0 : estimateRemaining(total, worked);
+            connection.send(
+                    new ProgressMessage(
+                            project,
+                            execution,
+                            task,
+                            total,
+                            (int) Math.min(Integer.MAX_VALUE, worked),
+                            done,
+                            remaining),
+                    session);
+        }
     }
 }
@@ -45,4 +45,20 @@ public interface Progress {
      * @return <code>true</code> if a cancel request is currently pending.
      */
     boolean isCancelRequested();
+
+    /**
+     * Creates a child progress that takes over the given amount of work of this
+     * progress, the child can then report its own task and amount of work that
+     * is scaled to its share. This is useful if work is processed in parallel,
+     * each worker gets its own child that is intended to be used by one thread
+     * at a time, and the children report into this progress concurrently, so
+     * implementations of this method require {@link #worked(int)} to be thread
+     * safe.
+     *
+     * @param work the amount of work of this progress the child represents
+     * @return a new child progress
+     */
+    default Progress split(int work) {
+        return new SplitProgress(this, work);
+    }
 }
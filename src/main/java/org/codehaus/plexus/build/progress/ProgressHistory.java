@@ -0,0 +1,144 @@
+package org.codehaus.plexus.build.progress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A small persistent history of the duration and throughput of mojo executions
+ * of a project. Values are kept as an exponentially weighted moving average so
+ * the history adapts to changes of the project over time while a single
+ * outlier does not distort the estimates. The history is stored as a
+ * properties file that is replaced atomically.
+ */
+final class ProgressHistory {
+
+    /**
+     * Weight of a new value in the moving average
+     */
+    private static final double ALPHA = 0.3;
+
+    private static final String DURATION = ".duration";
+    private static final String THROUGHPUT = ".throughput";
+    private static final String COUNT = ".count";
+
+    private final Path file;
+    private final Properties properties;
+
+    private ProgressHistory(Path file, Properties properties) {
+        this.file = file;
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the history from the given file, a missing or unreadable file results
+     * in an empty history
+     *
+     * @param file the file to load
+     * @return the history
+     */
+    static ProgressHistory load(Path file) {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (InputStream stream = Files.newInputStream(file)) {
+                properties.load(stream);
+            } catch (IOException | IllegalArgumentException e) {
+                properties.clear();
+            }
+        }
+        return new ProgressHistory(file, properties);
+    }
+
+    /**
+     * @param key the key of the mojo execution
+     * @return the number of executions recorded for the key
+     */
+    int getCount(String key) {
+        return (int) getValue(key + COUNT);
+    }
+
+    /**
+     * @param key the key of the mojo execution
+     * @return the average duration in nanoseconds or <code>0</code> if unknown
+     */
+    long getDuration(String key) {
+        return TimeUnit.MILLISECONDS.toNanos((long) getValue(key + DURATION));
+    }
+
+    /**
+     * @param key the key of the mojo execution
+     * @return the average units of work per second or <code>0</code> if unknown
+     */
+    double getThroughput(String key) {
+        return getValue(key + THROUGHPUT);
+    }
+
+    /**
+     * Records an execution
+     *
+     * @param key        the key of the mojo execution
+     * @param duration   the duration in nanoseconds
+     * @param throughput the units of work per second or <code>0</code> if no work
+     *                   was reported
+     */
+    void record(String key, long duration, double throughput) {
+        int count = getCount(key);
+        setValue(key + DURATION, average(count, getValue(key + DURATION), TimeUnit.NANOSECONDS.toMillis(duration)));
+        if (throughput > 0) {
+            setValue(key + THROUGHPUT, average(count, getThroughput(key), throughput));
+        }
+        properties.setProperty(key + COUNT, Integer.toString(count + 1));
+    }
+
+    /**
+     * Writes the history back to its file
+     *
+     * @throws IOException if writing failed
+     */
+    void save() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(
+                file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(tmp)) {
+                properties.store(stream, null);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static double average(int count, double previous, double value) {
+        if (count == 0 || previous <= 0) {
+            return value;
+        }
+        return previous + ALPHA * (value - previous);
+    }
+
+    private double getValue(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void setValue(String key, double value) {
+        properties.setProperty(key, Double.toString(value));
+    }
+}
@@ -0,0 +1,71 @@
+package org.codehaus.plexus.build.progress;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A child of a {@link Progress} that maps its own amount of work onto a share
+ * of the amount of work of its parent, see {@link Progress#split(int)}. The
+ * work is reported to the parent as soon as it amounts to at least one unit of
+ * the parent, once all work of the child is done the full share has been
+ * reported. If the child reports an unknown amount of work the last known
+ * amount is kept (initially the share, so each unit of the child is one unit
+ * of the parent), so the child still reports its full share once it has done
+ * that much work.
+ */
+final class SplitProgress implements Progress {
+
+    private final Progress parent;
+    private final int share;
+    private final AtomicLong worked = new AtomicLong();
+    private final AtomicLong reported = new AtomicLong();
+    private volatile long total;
+
+    SplitProgress(Progress parent, int share) {
+        this.parent = parent;
+        this.share = Math.max(0, share);
+        this.total = this.share;
+    }
+
+    @Override
+    public void startTask(String task, int work) {
+        setRemaining(work);
+    }
+
+    @Override
+    public void worked(int work) {
+        if (work <= 0) {
+            return;
+        }
+        report(worked.addAndGet(work));
+    }
+
+    @Override
+    public void setRemaining(int work) {
+        if (work > 0) {
+            total = worked.get() + work;
+        }
+        report(worked.get());
+    }
+
+    @Override
+    public boolean isCancelRequested() {
+        return parent.isCancelRequested();
+    }
+
+    private void report(long worked) {
+        long total = this.total;
+        if (total <= 0) {
+            // nothing to distribute the share on
+            return;
+        }
+        long target = worked >= total ? share : worked * share / total;
+        long current;
+        do {
+            current = reported.get();
+            if (target <= current) {
+                return;
+            }
+        } while (!reported.compareAndSet(current, target));
+        parent.worked((int) (target - current));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.state;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * The {@link BuildState} gives a mojo execution a persistent key/value store
+ * for its incremental state (e.g. which sources produced which outputs) that
+ * survives until the next build of the project.
+ * <p>
+ * The state of the previous build is read directly from its file without
+ * loading it as a whole, changes are only visible to the current execution and
+ * are written when the mojo execution ends successfully, if it fails the
+ * previous state is kept. The state is discarded if the version of the plugin
+ * has changed since it was written.
+ * </p>
+ * <p>
+ * The methods of this interface can be used by several threads concurrently.
+ * </p>
+ */
+public interface BuildState {
+
+    /**
+     * @param key the key
+     * @return a read-only buffer with the value of the key (positioned at the start
+     *         of the value) or <code>null</code> if the key has no value
+     */
+    ByteBuffer get(String key);
+
+    /**
+     * @param key the key
+     * @return the value of the key decoded as UTF-8 or <code>null</code> if the key
+     *         has no value
+     */
+    default String getString(String key) {
+        ByteBuffer value = get(key);
+        return value == null ? null : StandardCharsets.UTF_8.decode(value).toString();
+    }
+
+    /**
+     * Sets the value of a key
+     *
+     * @param key   the key
+     * @param value the value, the bytes between position and limit are copied
+     */
+    void put(String key, ByteBuffer value);
+
+    /**
+     * Sets the value of a key to the UTF-8 encoded string
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    default void putString(String key, String value) {
+        put(key, ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Removes the value of a key
+     *
+     * @param key the key
+     */
+    void remove(String key);
+
+    /**
+     * Removes all values, e.g. because the mojo performs a full build
+     */
+    void clear();
+
+    /**
+     * Passes all keys and values to the given consumer, the order is undefined
+     *
+     * @param consumer the consumer
+     */
+    void forEach(BiConsumer<String, ByteBuffer> consumer);
+}
@@ -0,0 +1,219 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.state;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import org.apache.maven.execution.MojoExecutionEvent;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.apache.maven.execution.scope.WeakMojoExecutionListener;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The default implementation keeps the state of each mojo execution in
+ * <code>target/plexus-build/state/&lt;artifactId&gt;-&lt;goal&gt;-&lt;executionId&gt;.&lt;n&gt;.state</code>
+ * of the project. The newest file of the previous build is memory mapped with
+ * the first access and values are read from it directly, changes are collected
+ * in memory and written to a new file with the next number when the mojo
+ * execution ends successfully. A mapped file is never overwritten, so this
+ * also works on Windows where the mapping of a long running JVM (e.g. m2e or
+ * mvnd) blocks replacing it. The state is versioned with the coordinates of the
+ * plugin, so a state written by another version of the plugin is ignored.
+ */
+@Named("default")
+@MojoExecutionScoped
+public class DefaultBuildState implements BuildState, WeakMojoExecutionListener {
+
+    /**
+     * Marks a removed key in the changes
+     */
+    private static final ByteBuffer REMOVED = ByteBuffer.allocate(0);
+
+    private final Logger logger = LoggerFactory.getLogger(DefaultBuildState.class);
+
+    private final Path file;
+
+    private final String version;
+
+    private final Map<String, ByteBuffer> changes = new ConcurrentHashMap<>();
+
+    private volatile boolean cleared;
+
+    private volatile StateFile state;
+
+    /**
+     * @param execution the execution to keep the state for
+     * @param project   the project of the execution
+     */
+    @Inject
+    public DefaultBuildState(MojoExecution execution, MavenProject project) {
+        this(getFile(execution, project), getVersion(execution));
+    }
+
+    /**
+     * Creates a state that is not bound to a mojo execution and must be committed
+     * explicitly
+     *
+     * @param file    the file to keep the state in or <code>null</code> to only
+     *                keep it in memory
+     * @param version the version of the state, a state of another version is
+     *                ignored
+     */
+    public DefaultBuildState(Path file, String version) {
+        this.file = file;
+        this.version = version;
+    }
+
+    private static Path getFile(MojoExecution execution, MavenProject project) {
+        if (project == null || project.getBuild() == null || project.getBuild().getDirectory() == null) {
+            return null;
+        }
+        String name = execution.getArtifactId() + "-" + execution.getGoal() + "-" + execution.getExecutionId();
+        return Paths.get(project.getBuild().getDirectory(), "plexus-build", "state", name + ".state");
+    }
+
+    private static String getVersion(MojoExecution execution) {
+        return execution.getGroupId() + ":" + execution.getArtifactId() + ":" + execution.getVersion();
+    }
+
+    private StateFile getState() {
+        StateFile state = this.state;
+        if (state == null) {
+            synchronized (this) {
+                state = this.state;
+                if (state == null) {
+                    state = open();
+                    this.state = state;
+                }
+            }
+        }
+        return state;
+    }
+
+    private StateFile open() {
+        if (file != null) {
+            try {
+                return StateFile.open(file, version);
+            } catch (IOException e) {
+                logger.warn("Can't read state " + file + ", starting with an empty state: " + e);
+            }
+        }
+        return StateFile.EMPTY;
+    }
+
+    @Override
+    public ByteBuffer get(String key) {
+        ByteBuffer value = changes.get(key);
+        if (value == REMOVED) {
+            return null;
+        }
+        if (value != null) {
+            return value.asReadOnlyBuffer();
+        }
+        if (cleared) {
+            return null;
+        }
+        return getState().get(key);
+    }
+
+    @Override
+    public void put(String key, ByteBuffer value) {
+        ByteBuffer copy = ByteBuffer.allocate(value.remaining());
+        copy.put(value.duplicate());
+        copy.flip();
+        changes.put(key, copy);
+    }
+
+    @Override
+    public void remove(String key) {
+        changes.put(key, REMOVED);
+    }
+
+    @Override
+    public void clear() {
+        cleared = true;
+        changes.clear();
+    }
+
+    @Override
+    public void forEach(BiConsumer<String, ByteBuffer> consumer) {
+        if (!cleared) {
+            getState().forEach((key, value) -> {
+                if (!changes.containsKey(key)) {
+                    consumer.accept(key, value);
+                }
+            });
+        }
+        changes.forEach((key, value) -> {
+            if (value != REMOVED) {
+                consumer.accept(key, value.asReadOnlyBuffer());
+            }
+        });
+    }
+
+    /**
+     * Writes the state if it was changed, this is called automatically when the
+     * mojo execution ends successfully
+     *
+     * @throws IOException if the state can't be written
+     */
+    public synchronized void commit() throws IOException {
+        if (file == null || (changes.isEmpty() && !cleared)) {
+            return;
+        }
+        Map<String, ByteBuffer> values = new LinkedHashMap<>();
+        forEach(values::put);
+        StateFile.write(file, version, values);
+        changes.clear();
+        cleared = false;
+        state = null;
+    }
+
+    @Override
+    public void beforeMojoExecution(MojoExecutionEvent event) {}
+
+    @Override
+    public void afterMojoExecutionSuccess(MojoExecutionEvent event) {
+        try {
+            commit();
+        } catch (IOException e) {
+            logger.warn("Can't write state " + file + ", the next build starts with an empty state: " + e);
+            try {
+                // the previous state does not match the outputs of this execution
+                StateFile.invalidate(file);
+            } catch (IOException suppressed) {
+                logger.error("Can't invalidate state " + file + ", delete it before the next build: " + suppressed);
+            }
+        }
+    }
+
+    @Override
+    public void afterExecutionFailure(MojoExecutionEvent event) {
+        // keep the state of the last successful execution
+        changes.clear();
+        cleared = false;
+    }
+}
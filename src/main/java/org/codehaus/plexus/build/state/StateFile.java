@@ -0,0 +1,373 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.state;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A read-only hash table of byte values stored in a memory mapped file, so
+ * looking up a key only touches the pages of the probed slots and the matching
+ * record and nothing is deserialized up front. The file layout is
+ *
+ * <pre>
+ * int     magic
+ * int     length of the file
+ * int     length of the version, followed by the UTF-8 encoded version
+ * int     number of slots (a power of two)
+ * int     number of records
+ * int[]   slots, the offset of the record or 0 if the slot is empty
+ * records int hash, int key length, int value length, key bytes, value bytes
+ * </pre>
+ *
+ * Keys are located by linear probing starting at the slot of their hash.
+ * <p>
+ * A state file is never overwritten: each write creates a new generation
+ * <code>&lt;name&gt;.&lt;n&gt;.state</code> next to the given file and only the
+ * newest generation is read. A generation that is still mapped (which on
+ * Windows can't be replaced or deleted until the mapping is garbage
+ * collected) therefore stays untouched, older generations are deleted on a
+ * best effort basis. A <code>&lt;name&gt;.invalid</code> marker makes all
+ * existing generations untrusted until the next write.
+ * </p>
+ */
+final class StateFile {
+
+    private static final int MAGIC = 0x50425331;
+
+    static final StateFile EMPTY = new StateFile(null, 0, 0, 0);
+
+    private final ByteBuffer buffer;
+    private final int slots;
+    private final int count;
+    private final int slotsStart;
+
+    private StateFile(ByteBuffer buffer, int slots, int count, int slotsStart) {
+        this.buffer = buffer;
+        this.slots = slots;
+        this.count = count;
+        this.slotsStart = slotsStart;
+    }
+
+    /**
+     * Opens the newest generation of a state file, a missing or corrupted file,
+     * a file written for another version or an invalidated state results in an
+     * empty state
+     *
+     * @param file    the state file
+     * @param version the expected version
+     * @return the state
+     * @throws IOException if the file can't be read
+     */
+    static StateFile open(Path file, String version) throws IOException {
+        if (Files.exists(marker(file))) {
+            return EMPTY;
+        }
+        long generation = newestGeneration(file);
+        if (generation < 0) {
+            return EMPTY;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(generation(file, generation), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 20 || size > Integer.MAX_VALUE) {
+                return EMPTY;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            return EMPTY;
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != buffer.capacity()) {
+            return EMPTY;
+        }
+        byte[] expected = version.getBytes(StandardCharsets.UTF_8);
+        int versionLength = buffer.getInt(8);
+        if (versionLength != expected.length || 20 + versionLength > buffer.capacity()) {
+            return EMPTY;
+        }
+        for (int i = 0; i < versionLength; i++) {
+            if (buffer.get(12 + i) != expected[i]) {
+                return EMPTY;
+            }
+        }
+        int slots = buffer.getInt(12 + versionLength);
+        int count = buffer.getInt(16 + versionLength);
+        int slotsStart = 20 + versionLength;
+        if (slots <= 0
+                || Integer.bitCount(slots) != 1
+                || count >= slots
+                || slotsStart + 4L * slots > buffer.capacity()) {
+            return EMPTY;
+        }
+        return new StateFile(buffer.asReadOnlyBuffer(), slots, count, slotsStart);
+    }
+
+    /**
+     * @param key the key
+     * @return a read-only buffer of the value or <code>null</code> if the key is
+     *         not present
+     */
+    ByteBuffer get(String key) {
+        if (count == 0) {
+            return null;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(key);
+        for (int slot = hash & (slots - 1); ; slot = (slot + 1) & (slots - 1)) {
+            int offset = buffer.getInt(slotsStart + 4 * slot);
+            if (offset == 0) {
+                return null;
+            }
+            if (buffer.getInt(offset) == hash && matches(offset, bytes)) {
+                return value(offset);
+            }
+        }
+    }
+
+    private boolean matches(int offset, byte[] key) {
+        if (buffer.getInt(offset + 4) != key.length) {
+            return false;
+        }
+        int start = offset + 12;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer value(int offset) {
+        int start = offset + 12 + buffer.getInt(offset + 4);
+        ByteBuffer value = buffer.duplicate();
+        value.position(start);
+        value.limit(start + buffer.getInt(offset + 8));
+        return value.slice();
+    }
+
+    /**
+     * Passes all keys and values in the order of the file to the consumer
+     *
+     * @param consumer the consumer
+     */
+    void forEach(BiConsumer<String, ByteBuffer> consumer) {
+        int offset = slotsStart + 4 * slots;
+        for (int i = 0; i < count; i++) {
+            int keyLength = buffer.getInt(offset + 4);
+            int valueLength = buffer.getInt(offset + 8);
+            ByteBuffer key = buffer.duplicate();
+            key.position(offset + 12);
+            key.limit(offset + 12 + keyLength);
+            consumer.accept(StandardCharsets.UTF_8.decode(key).toString(), value(offset));
+            offset += 12 + keyLength + valueLength;
+        }
+    }
+
+    /**
+     * Writes a new generation of the state file and removes older generations and
+     * an invalidation marker
+     *
+     * @param file    the state file
+     * @param version the version
+     * @param values  the keys and values to write
+     * @throws IOException if the file can't be written
+     */
+    static void write(Path file, String version, Map<String, ByteBuffer> values) throws IOException {
+        byte[] versionBytes = version.getBytes(StandardCharsets.UTF_8);
+        int count = values.size();
+        int slots = Integer.highestOneBit(Math.max(2, count * 2) - 1) << 1;
+        long slotsStart = 20 + versionBytes.length;
+        long offset = slotsStart + 4L * slots;
+        List<byte[]> keys = new ArrayList<>(count);
+        int[] hashes = new int[count];
+        int[] table = new int[slots];
+        int i = 0;
+        for (Map.Entry<String, ByteBuffer> entry : values.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            int hash = hash(entry.getKey());
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("State exceeds the maximum size of 2GB");
+            }
+            int slot = hash & (slots - 1);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            table[slot] = (int) offset;
+            keys.add(key);
+            hashes[i++] = hash;
+            offset += 12 + key.length + entry.getValue().remaining();
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("State exceeds the maximum size of 2GB");
+        }
+        Files.createDirectories(file.getParent());
+        long generation = newestGeneration(file) + 1;
+        Path target = generation(file, generation);
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream stream =
+                    new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+                stream.writeInt(MAGIC);
+                stream.writeInt((int) offset);
+                stream.writeInt(versionBytes.length);
+                stream.write(versionBytes);
+                stream.writeInt(slots);
+                stream.writeInt(count);
+                for (int slot : table) {
+                    stream.writeInt(slot);
+                }
+                i = 0;
+                for (ByteBuffer value : values.values()) {
+                    byte[] key = keys.get(i);
+                    stream.writeInt(hashes[i++]);
+                    stream.writeInt(key.length);
+                    stream.writeInt(value.remaining());
+                    stream.write(key);
+                    write(stream, value.duplicate());
+                }
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        Files.deleteIfExists(marker(file));
+        deleteGenerations(file, generation);
+    }
+
+    /**
+     * Makes all existing generations of the state file untrusted, they are
+     * deleted if possible and otherwise an invalidation marker is written
+     *
+     * @param file the state file
+     * @throws IOException if the state could neither be deleted nor marked as
+     *                     invalid
+     */
+    static void invalidate(Path file) throws IOException {
+        if (!deleteGenerations(file, Long.MAX_VALUE)) {
+            Files.createDirectories(file.getParent());
+            if (!Files.exists(marker(file))) {
+                Files.createFile(marker(file));
+            }
+        }
+    }
+
+    /**
+     * Deletes all generations older than the given one
+     *
+     * @return <code>true</code> if all of them were deleted
+     */
+    private static boolean deleteGenerations(Path file, long before) {
+        List<Long> generations;
+        try {
+            generations = generations(file);
+        } catch (IOException e) {
+            return false;
+        }
+        boolean deleted = true;
+        for (long generation : generations) {
+            if (generation < before) {
+                try {
+                    Files.deleteIfExists(generation(file, generation));
+                } catch (IOException e) {
+                    // still mapped by this or another process, retried with the next write
+                    deleted = false;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static long newestGeneration(Path file) throws IOException {
+        long newest = -1;
+        for (long generation : generations(file)) {
+            newest = Math.max(newest, generation);
+        }
+        return newest;
+    }
+
+    private static List<Long> generations(Path file) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        Path directory = file.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return generations;
+        }
+        String prefix = baseName(file) + ".";
+        DirectoryStream.Filter<Path> filter = path -> {
+            String name = path.getFileName().toString();
+            return name.length() > prefix.length() + ".state".length()
+                    && name.startsWith(prefix)
+                    && name.endsWith(".state");
+        };
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, filter)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String number = name.substring(prefix.length(), name.length() - ".state".length());
+                if (!number.isEmpty() && number.length() < 19 && number.chars().allMatch(Character::isDigit)) {
+                    generations.add(Long.parseLong(number));
+                }
+            }
+        }
+        return generations;
+    }
+
+    private static Path generation(Path file, long generation) {
+        return file.resolveSibling(baseName(file) + "." + generation + ".state");
+    }
+
+    private static Path marker(Path file) {
+        return file.resolveSibling(baseName(file) + ".invalid");
+    }
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".state") ? name.substring(0, name.length() - ".state".length()) : name;
+    }
+
+    private static void write(DataOutputStream stream, ByteBuffer value) throws IOException {
+        if (value.hasArray()) {
+            stream.write(value.array(), value.arrayOffset() + value.position(), value.remaining());
+        } else {
+            byte[] chunk = new byte[Math.min(value.remaining(), 8192)];
+            while (value.hasRemaining()) {
+                int length = Math.min(chunk.length, value.remaining());
+                value.get(chunk, 0, length);
+                stream.write(chunk, 0, length);
+            }
+        }
+    }
+
+    private static int hash(String key) {
+        // String.hashCode() is specified, so the hash is stable across JVMs
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
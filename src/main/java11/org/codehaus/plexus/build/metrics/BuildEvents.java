@@ -0,0 +1,126 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Emits Java Flight Recorder events for the operations performed through the
+ * build API so build slowness can be attributed to specific plugins (through
+ * the stack trace of the events) in JDK Mission Control.
+ * <p>
+ * This is the Java 11 variant of the class, events are only created if a
+ * recording is running and only committed if the event type is enabled in the
+ * recording settings.
+ * </p>
+ */
+public final class BuildEvents {
+
+    private BuildEvents() {}
+
+    /**
+     * @return <code>true</code> if events might currently be recorded, callers can
+     *         use this to avoid measuring values only needed for the events
+     */
+    public static boolean isEnabled() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Records that an output stream of the build context was closed
+     *
+     * @param file    the file the stream was opened for
+     * @param bytes   the number of bytes passed to the stream
+     * @param skipped <code>true</code> if the file was not written because the
+     *                content was unchanged
+     */
+    public static void fileWritten(File file, long bytes, boolean skipped) {
+        FileWriteEvent event = new FileWriteEvent();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = bytes;
+            event.skipped = skipped;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a file or folder was refreshed
+     *
+     * @param file the refreshed file
+     */
+    public static void refreshed(File file) {
+        RefreshEvent event = new RefreshEvent();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a scanner of the build context has performed a scan
+     *
+     * @param basedir  the base directory of the scan
+     * @param files    the number of files found
+     * @param duration the duration of the scan in nanoseconds
+     */
+    public static void scanned(File basedir, int files, long duration) {
+        ScanEvent event = new ScanEvent();
+        if (event.shouldCommit()) {
+            event.basedir = basedir == null ? null : basedir.getPath();
+            event.files = files;
+            event.scanTime = duration;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a message (marker) was created for a file
+     *
+     * @param type the type of the message
+     * @param path the path the message was created for, might be
+     *             <code>null</code>
+     * @param line the line of the message
+     */
+    public static void messageCreated(String type, Path path, int line) {
+        MessageEvent event = new MessageEvent();
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.path = path == null ? null : path.toString();
+            event.line = line;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a message was send through the build connection
+     *
+     * @param type      the type of the message
+     * @param sent      the bytes send
+     * @param received  the bytes received with the reply
+     * @param roundTrip the time in nanoseconds until the reply was received
+     */
+    public static void messageSent(String type, long sent, long received, long roundTrip) {
+        SendEvent event = new SendEvent();
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.sent = sent;
+            event.received = received;
+            event.roundTrip = roundTrip;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("org.codehaus.plexus.build.Scan")
+@Label("Scan")
+@Category({"Maven", "Build API"})
+@Description("A scanner of the build context has performed a scan")
+final class ScanEvent extends Event {
+
+    @Label("Base Directory")
+    String basedir;
+
+    @Label("Files")
+    int files;
+
+    @Label("Scan Time")
+    @Timespan
+    long scanTime;
+}
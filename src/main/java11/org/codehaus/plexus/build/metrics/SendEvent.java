@@ -0,0 +1,43 @@
+/*
+Copyright (c) 2025 Christoph Läubrich All rights reserved.
+
+This program is licensed to you under the Apache License Version 2.0,
+and you may not use this file except in compliance with the Apache License Version 2.0.
+You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the Apache License Version 2.0 is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+*/
+package org.codehaus.plexus.build.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("org.codehaus.plexus.build.Send")
+@Label("Send")
+@Category({"Maven", "Build API"})
+@Description("A message was send through the build connection")
+final class SendEvent extends Event {
+
+    @Label("Type")
+    String type;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    long sent;
+
+    @Label("Bytes Received")
+    @DataAmount
+    long received;
+
+    @Label("Round Trip")
+    @Timespan
+    long roundTrip;
+}